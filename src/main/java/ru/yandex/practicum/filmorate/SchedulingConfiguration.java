@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Фоновые задачи по расписанию: уплотнение журнала (WalManager) и сверка хранилищ (OrphanReconciler).
+ * Сами задачи включаются своими свойствами, планировщик включён всегда.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии фильмов и пользователей для условных запросов.
+ * Каждое изменение сущности увеличивает версию каталога и присваивает её сущности,
+ * так что версия сущности монотонна, а версия каталога меняется при любом изменении в нём.
+ * Версии живут в памяти процесса, поэтому в ETag входит метка запуска: после рестарта
+ * старые ETag не совпадут с новыми, даже если счётчики дойдут до тех же значений.
+ */
+@Component
+public class CatalogVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong films = new AtomicLong();
+    private final AtomicLong users = new AtomicLong();
+    //удалённые сущности остаются в индексе: их версия не должна откатиться к нулю
+    private final Map<Long, Long> filmVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userVersions = new ConcurrentHashMap<>();
+
+    public long filmChanged(long id) {
+        long version = films.incrementAndGet();
+        filmVersions.merge(id, version, Math::max);
+        return version;
+    }
+
+    public long userChanged(long id) {
+        long version = users.incrementAndGet();
+        userVersions.merge(id, version, Math::max);
+        return version;
+    }
+
+    public long film(long id) {
+        return filmVersions.getOrDefault(id, 0L);
+    }
+
+    public long user(long id) {
+        return userVersions.getOrDefault(id, 0L);
+    }
+
+    public long films() {
+        return films.get();
+    }
+
+    public long users() {
+        return users.get();
+    }
+
+    public String etag(char scope, long version) {
+        return "\"" + scope + epoch + "-" + version + "\"";
+    }
+}
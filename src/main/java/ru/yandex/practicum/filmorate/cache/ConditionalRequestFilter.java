@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Условные GET-запросы: ETag строится из версии сущности или каталога до выполнения запроса,
+ * и при совпадении с If-None-Match ответ 304 уходит без обращения к сервису и без сериализации.
+ * Ответы с ошибкой, например 404 на несуществующий фильм, ETag не получают.
+ * Версия берётся до запроса: если данные изменятся во время него, ETag окажется старше ответа,
+ * и клиент просто перезапросит данные в следующий раз.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class ConditionalRequestFilter extends OncePerRequestFilter {
+    private static final Pattern FILM = Pattern.compile("/films/(\\d{1,18})(/likes)?");
+    private static final Pattern FILMS = Pattern.compile("/films(/popular|/trending|/search|/facets)?");
+    private static final Pattern USER = Pattern.compile("/users/(\\d{1,18})");
+    private static final Pattern USERS = Pattern.compile(
+            "/users(/\\d{1,18}/friends(/common/\\d{1,18}(/count)?|(/suggestions))?)?");
+    private static final String[] USERS_PATTERNS = {"/users", "/users/{id}/friends",
+            "/users/{id}/friends/common/{otherId}", "/users/{id}/friends/common/{otherId}/count",
+            "/users/{id}/friends/suggestions"};
+
+    private final CatalogVersions versions;
+
+    @Autowired
+    public ConditionalRequestFilter(CatalogVersions versions) {
+        this.versions = versions;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Tag tag = tag(request.getRequestURI());
+        if (tag == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        //ETag выдаётся только успешным ответам, поэтому совпадение означает, что ресурс существовал в этой версии;
+        //удаление меняет версию, так что удалённый ресурс уже не совпадёт
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), tag.etag())) {
+            //запрос не дошёл до контроллера: шаблон пути для метрик проставляем сами
+            ServerHttpObservationFilter.findObservationContext(request)
+                    .ifPresent(context -> context.setPathPattern(tag.pathPattern()));
+            response.setHeader(HttpHeaders.ETAG, tag.etag());
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        TaggedResponse tagged = new TaggedResponse(response, tag.etag());
+        chain.doFilter(request, tagged);
+        tagged.tag();
+    }
+
+    private Tag tag(String uri) {
+        Matcher film = FILM.matcher(uri);
+        if (film.matches()) {
+            return new Tag(versions.etag('f', versions.film(Long.parseLong(film.group(1)))),
+                    film.group(2) == null ? "/films/{filmId}" : "/films/{id}/likes");
+        }
+        if (FILMS.matcher(uri).matches()) return new Tag(versions.etag('F', versions.films()), uri);
+        Matcher user = USER.matcher(uri);
+        if (user.matches()) {
+            return new Tag(versions.etag('u', versions.user(Long.parseLong(user.group(1)))), "/users/{userId}");
+        }
+        //списки друзей включают чужие карточки - их версия это версия всего каталога пользователей
+        Matcher users = USERS.matcher(uri);
+        if (users.matches()) {
+            int depth = users.group(4) != null ? 4
+                    : users.group(3) != null ? 3 : users.group(2) != null ? 2 : users.group(1) != null ? 1 : 0;
+            return new Tag(versions.etag('U', versions.users()), USERS_PATTERNS[depth]);
+        }
+        return null;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            //"*" требует знать, существует ли ресурс, - такой запрос выполняется как обычный
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private record Tag(String etag, String pathPattern) {
+    }
+
+    //ETag ставится, когда статус уже известен: перед первой записью тела или после обработки запроса
+    private static final class TaggedResponse extends HttpServletResponseWrapper {
+        private final String etag;
+        private boolean decided;
+
+        private TaggedResponse(HttpServletResponse response, String etag) {
+            super(response);
+            this.etag = etag;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            tag();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            tag();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            tag();
+            super.flushBuffer();
+        }
+
+        private void tag() {
+            if (decided || isCommitted()) return;
+            decided = true;
+            if (getStatus() >= 200 && getStatus() < 300) setHeader(HttpHeaders.ETAG, etag);
+        }
+    }
+}
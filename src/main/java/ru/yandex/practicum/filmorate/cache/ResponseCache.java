@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кэш готовых JSON-ответов для чтения фильма, пользователя и списка друзей.
+ * Ключ - путь запроса, значение - тело ответа в байтах, поэтому попадание не вызывает ни сервис, ни Jackson.
+ * Вытеснение по суммарному размеру тел и по времени жизни; допуск новых записей решает W-TinyLFU Caffeine,
+ * так что разовые чтения не вымывают горячий набор.
+ * Сервисы после изменений сбрасывают ровно те ключи, чьи ответы изменились.
+ */
+@Component
+public class ResponseCache implements MeterBinder {
+    //кэш нулевого размера: для сервисов, собранных без Spring
+    public static final ResponseCache NONE = new ResponseCache(DataSize.ofBytes(0), Duration.ofSeconds(1));
+
+    //число счётчиков сбросов: ключи делят счётчики по хэшу, как блокировки в StripedLocks
+    private static final int STAMPS = 1024;
+
+    private final Cache<String, byte[]> cache;
+    //счётчики сбросов по ключам: ответ, посчитанный до сброса своего ключа, не должен остаться в кэше.
+    //Сброс соседнего по счётчику ключа лишь отменит запись, устаревшей она не станет
+    private final AtomicLongArray invalidations = new AtomicLongArray(STAMPS);
+
+    @Autowired
+    public ResponseCache(@Value("${filmorate.cache.max-size}") DataSize maxSize,
+                         @Value("${filmorate.cache.ttl}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, byte[] body) -> key.length() + body.length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public static String film(long id) {
+        return "/films/" + id;
+    }
+
+    public static String user(long id) {
+        return "/users/" + id;
+    }
+
+    public static String friends(long id) {
+        return "/users/" + id + "/friends";
+    }
+
+    public byte[] get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    //метка для put: берётся до вычисления ответа
+    public long stamp(String key) {
+        return invalidations.get(index(key));
+    }
+
+    public void put(String key, byte[] body, long stamp) {
+        cache.put(key, body);
+        //сброс ключа мог прийти, пока ответ считался: тогда запись может быть устаревшей
+        if (invalidations.get(index(key)) != stamp) cache.invalidate(key);
+    }
+
+    public void invalidate(String key) {
+        invalidations.incrementAndGet(index(key));
+        cache.invalidate(key);
+    }
+
+    private static int index(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STAMPS - 1);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    //попадания, промахи и вытеснения в формате cache.* с тегом cache=responses
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "responses");
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Отдаёт закэшированные ответы GET /films/{id}, /users/{id} и /users/{id}/friends,
+ * а при промахе сохраняет успешный ответ контроллера.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final Pattern CACHED_PATHS = Pattern.compile("/films/(\\d{1,18})|/users/(\\d{1,18})(/friends)?");
+
+    private final ResponseCache cache;
+
+    @Autowired
+    public ResponseCacheFilter(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) || request.getQueryString() != null
+                || !CACHED_PATHS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = key(request.getRequestURI());
+        byte[] body = cache.get(key);
+        if (body != null) {
+            //запрос не дошёл до контроллера: шаблон пути для метрик проставляем сами
+            ServerHttpObservationFilter.findObservationContext(request)
+                    .ifPresent(context -> context.setPathPattern(pathPattern(key)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+            return;
+        }
+        long stamp = cache.stamp(key);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) cache.put(key, wrapper.getContentAsByteArray(), stamp);
+        wrapper.copyBodyToResponse();
+    }
+
+    private static String pathPattern(String key) {
+        if (key.startsWith("/films/")) return "/films/{filmId}";
+        return key.endsWith("/friends") ? "/users/{id}/friends" : "/users/{userId}";
+    }
+
+    //ключ строится заново из id: /films/007 и /films/7 - один и тот же ответ
+    private static String key(String uri) {
+        Matcher matcher = CACHED_PATHS.matcher(uri);
+        matcher.matches();
+        if (matcher.group(1) != null) return ResponseCache.film(Long.parseLong(matcher.group(1)));
+        long id = Long.parseLong(matcher.group(2));
+        return matcher.group(3) == null ? ResponseCache.user(id) : ResponseCache.friends(id);
+    }
+}
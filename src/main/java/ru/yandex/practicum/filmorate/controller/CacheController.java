@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.cache.ResponseCache;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+    private final ResponseCache responseCache;
+
+    @Autowired
+    public CacheController(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    //статистика кэша ответов: попадания, промахи, вытеснения
+    @GetMapping("/stats")
+    public Map<String, Number> getStats() {
+        CacheStats stats = responseCache.stats();
+        return Map.of(
+                "size", responseCache.size(),
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictions", stats.evictionCount(),
+                "evictedBytes", stats.evictionWeight());
+    }
+}
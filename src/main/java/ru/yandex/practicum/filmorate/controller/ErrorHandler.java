@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.yandex.practicum.filmorate.exception.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Map;
+
+/**
+ * Ответы об ошибках для всех контроллеров: тело {"error": "..."} и код по типу исключения.
+ * Исключения сервисов о ненайденном объекте и некорректном запросе создаются без стека.
+ * Чтение по id, где промахи - заметная доля трафика, отдаёт 404 готовым ответом {@link #notFound}
+ * и не проходит через разрешение исключений.
+ */
+@Slf4j
+@RestControllerAdvice
+public class ErrorHandler {
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public Map<String, String> handleNotFound(final SoughtObjectNotFoundException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    //тот же ответ 404 без исключения: ответ неизменяемый, его можно создать заранее и отдавать на каждый промах
+    static ResponseEntity<?> notFound(String message) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", message));
+    }
+
+    //ошибки тела запроса перечисляются по полям в errors, error - все сообщения одной строкой
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, Object> handleValidationException(final ValidationException e) {
+        if (e.getViolations().isEmpty()) return Map.of("error", e.getMessage());
+        return Map.of("error", e.getMessage(), "errors", e.getViolations());
+    }
+
+    //параметры отбора, которые не удалось разобрать: дата не в формате ГГГГ-ММ-ДД, длительность не число
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleBindException(final BindException e) {
+        FieldError error = e.getFieldError();
+        return Map.of("error", "Некорректное значение параметра " + (error == null ? e.getObjectName() : error.getField()));
+    }
+
+    //id в пути или параметр запроса не число
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleTypeMismatch(final TypeMismatchException e) {
+        return Map.of("error", "Некорректное значение параметра " + e.getPropertyName());
+    }
+
+    //очередь асинхронных лайков заполнена
+    @ExceptionHandler
+    public ResponseEntity<Map<String, String>> handleOverloaded(final ServiceOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    public Map<String, String> handleRuntimeException(final RuntimeException e) {
+        log.error(e.getMessage(), e);
+        return Map.of("error", "Что-то пошло не по плану");
+    }
+}
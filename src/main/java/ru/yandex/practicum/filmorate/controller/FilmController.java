@@ -1,53 +1,116 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import lombok.extern.slf4j.Slf4j;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeAck;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/films")
-@Slf4j
 public class FilmController {
+    private static final String PREFER_ASYNC = "Prefer=respond-async";
+    private static final ResponseEntity<?> NOT_FOUND = ErrorHandler.notFound(FilmService.FILM_NOT_FOUND);
+
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
-    //получение фильма по id
+    //получение фильма по id; промах отдаётся готовым ответом 404, без исключения
     @GetMapping("/{filmId}")
-    public Optional<Film> getFilm(@PathVariable Long filmId) {
-        return filmService.getFilmById(filmId);
+    public ResponseEntity<?> getFilm(@PathVariable Long filmId) {
+        Optional<Film> film = filmService.findFilmById(filmId);
+        return film.isPresent() ? ResponseEntity.ok(film.get()) : NOT_FOUND;
+    }
+
+    //лайкнувшие фильм постранично: id пользователей по возрастанию, ?after=<id последнего полученного>&limit=
+    @GetMapping("/{id}/likes")
+    public long[] getLikes(@PathVariable Long id, @RequestParam(defaultValue = "0") Long after,
+                           @RequestParam(defaultValue = "100") Integer limit) {
+        return filmService.getLikes(id, after, limit);
     }
 
-    //получение всех фильмов
+    //получение всех фильмов; отбор: ?releasedFrom=&releasedTo=&minDuration=&maxDuration=, порядок: &sort=popular
     @GetMapping
-    public Collection<Film> getFilms() {
-        return filmService.getFilms();
+    public Collection<Film> getFilms(FilmFilter filter) {
+        return filmService.getFilms(filter);
+    }
+
+    //получение фильмов постранично: ?after=<id последнего полученного>&limit=, с тем же отбором
+    @GetMapping(params = "limit")
+    public Collection<Film> getFilmsPage(FilmFilter filter, @RequestParam(defaultValue = "0") Long after,
+                                         @RequestParam Integer limit) {
+        return filmService.getFilms(filter, after, limit);
+    }
+
+    //число фильмов по годам выхода и по корзинам длительности
+    @GetMapping("/facets")
+    public FilmFacets getFacets() {
+        return filmService.getFacets();
+    }
+
+    //потоковая выдача всех фильмов в формате NDJSON: ?format=ndjson
+    @GetMapping(params = NdjsonStreams.FORMAT_PARAM, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms(@RequestParam(defaultValue = "0") Long after) {
+        return NdjsonStreams.stream(objectMapper, after, filmService::getFilms, Film::getId);
     }
 
     //ролучаем список самых популярных фильмов
-    @GetMapping("/popular?count={count}")
-    public Collection<Film> getFilmsPopular(@RequestParam Long count) {
+    @GetMapping("/popular")
+    public Collection<Film> getFilmsPopular(@RequestParam(defaultValue = "10") Long count) {
         return filmService.getPopularFilms(count);
     }
 
+    //фильмы, набирающие лайки: window - окно затухания (1d, 7d, 30d)
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "7d") String window,
+                                       @RequestParam(defaultValue = "10") Integer count) {
+        return filmService.getTrendingFilms(window, count);
+    }
+
+    //поиск по названию и описанию, последнее слово запроса - начало слова
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String q, @RequestParam(defaultValue = "10") Integer limit) {
+        return filmService.searchFilms(q, limit);
+    }
+
     //добавление нового фильма
     @PostMapping
     public Film addFilm(@RequestBody Film film) {
         return filmService.addFilm(film);
     }
 
+    //пакетное добавление фильмов: массив JSON
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResult addFilms(@RequestBody List<Film> films) {
+        return filmService.addFilms(films.iterator());
+    }
+
+    //пакетное добавление фильмов: поток NDJSON
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchResult addFilmsStream(InputStream body) throws IOException {
+        return filmService.addFilms(NdjsonStreams.read(objectMapper, body, Film.class));
+    }
+
     //изменение фильма
     @PutMapping
     public Film updateFilm(@RequestBody Film film) {
@@ -60,6 +123,26 @@ public class FilmController {
         return filmService.likeFilm(id, userId);
     }
 
+    //асинхронный лайк по заголовку Prefer: respond-async - 202 и подтверждение, лайк применяется в фоне.
+    //Если асинхронный приём выключен, лайк ставится сразу, как без заголовка
+    @PutMapping(value = "/{id}/like/{userId}", headers = PREFER_ASYNC)
+    public ResponseEntity<?> likeFilmAsync(@PathVariable Long id, @PathVariable Long userId) {
+        if (!filmService.isLikesAsync()) return ResponseEntity.ok(filmService.likeFilm(id, userId));
+        return accepted(filmService.submitLike(id, userId, true));
+    }
+
+    //пакетная простановка лайков: массив JSON
+    @PutMapping(value = "/likes/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResult likeFilms(@RequestBody List<Like> likes) {
+        return filmService.likeFilms(likes.iterator());
+    }
+
+    //пакетная простановка лайков: поток NDJSON
+    @PutMapping(value = "/likes/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchResult likeFilmsStream(InputStream body) throws IOException {
+        return filmService.likeFilms(NdjsonStreams.read(objectMapper, body, Like.class));
+    }
+
     //удаляем фильм по id
     @DeleteMapping("/{filmId}")
     public void deleteFilm(@PathVariable Long filmId) {
@@ -72,22 +155,17 @@ public class FilmController {
         filmService.deleteLikeFilm(id, userId);
     }
 
-    @ExceptionHandler
-    @ResponseStatus(HttpStatus.NOT_FOUND)
-    private Map<String, String> objectNotFound(final SoughtObjectNotFoundException e) {
-        return Map.of("error", e.getMessage());
-    }
-
-    @ExceptionHandler
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    private Map<String, String> handleValidationException(final ValidationException e) {
-        return Map.of("error", e.getMessage());
+    //асинхронное снятие лайка, как likeFilmAsync
+    @DeleteMapping(value = "/{id}/like/{userId}", headers = PREFER_ASYNC)
+    public ResponseEntity<?> deleteLikeFilmAsync(@PathVariable Long id, @PathVariable Long userId) {
+        if (!filmService.isLikesAsync()) {
+            filmService.deleteLikeFilm(id, userId);
+            return ResponseEntity.ok().build();
+        }
+        return accepted(filmService.submitLike(id, userId, false));
     }
 
-    @ExceptionHandler
-    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-    private Map<String, String> handleRuntimeException(final RuntimeException e) {
-        log.error(e.getMessage(), e);
-        return Map.of("error", "Что-то пошло не по плану");
+    private static ResponseEntity<LikeAck> accepted(LikeAck ack) {
+        return ResponseEntity.accepted().header("Preference-Applied", "respond-async").body(ack);
     }
 }
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Потоковая выдача и приём коллекций в формате NDJSON: по одному объекту JSON на строку.
+ * Данные читаются из хранилища страницами и сразу пишутся в сокет, входящий поток
+ * разбирается по одному объекту, поэтому расход памяти не зависит от размера коллекции.
+ */
+final class NdjsonStreams {
+    static final String FORMAT_PARAM = "format=ndjson";
+    private static final int PAGE_SIZE = 500;
+
+    private NdjsonStreams() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper mapper, long after,
+                                            PageSource<T> pages, ToLongFunction<T> idOf) {
+        StreamingResponseBody body = out -> {
+            List<T> page = pages.page(after, PAGE_SIZE);
+            if (page.isEmpty()) return;
+            try (SequenceWriter writer = mapper.writer()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                while (!page.isEmpty()) {
+                    writer.writeAll(page);
+                    writer.flush();
+                    long cursor = idOf.applyAsLong(page.get(page.size() - 1));
+                    page = page.size() < PAGE_SIZE ? List.of() : pages.page(cursor, PAGE_SIZE);
+                }
+            }
+            out.write('\n');
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    //ленивый разбор тела запроса; на испорченной строке итератор бросает ошибку валидации, и пакет на ней завершается
+    static <T> Iterator<T> read(ObjectMapper mapper, InputStream in, Class<T> type) throws IOException {
+        MappingIterator<T> values = mapper.readerFor(type).readValues(in);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return values.hasNext();
+                } catch (RuntimeException e) {
+                    throw malformed(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                try {
+                    return values.next();
+                } catch (RuntimeException e) {
+                    throw malformed(e);
+                }
+            }
+        };
+    }
+
+    //MappingIterator оборачивает ошибки разбора в непроверяемые исключения
+    private static RuntimeException malformed(RuntimeException e) {
+        if (e.getCause() instanceof JsonProcessingException json) {
+            return new ValidationException("Некорректная строка NDJSON: " + json.getOriginalMessage());
+        }
+        if (e instanceof RuntimeJsonMappingException) {
+            return new ValidationException("Некорректная строка NDJSON: " + e.getMessage());
+        }
+        return e;
+    }
+
+    interface PageSource<T> {
+        List<T> page(Long after, Integer limit);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/users")
+public class RecommendationController {
+    private final FilmService filmService;
+
+    @Autowired
+    public RecommendationController(FilmService filmService) {
+        this.filmService = filmService;
+    }
+
+    //фильмы, которые понравились пользователям с похожими лайками
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer limit) {
+        return filmService.getRecommendations(id, limit);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Views;
+
+/**
+ * Представление JSON-ответа по параметру ?view=: summary - фильмы и пользователи без множеств лайков
+ * и друзей, только их число; full (по умолчанию) - целиком. Действует на любой ответ контроллеров,
+ * поэтому краткий вид доступен и спискам, и ответу на лайк или добавление друга.
+ */
+@RestControllerAdvice
+public class ResponseViewAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+    private static final String VIEW_PARAM = "view";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) return;
+        //неизвестное значение сюда доходит только с ответом об ошибке - он отдаётся целиком
+        if ("summary".equals(servletRequest.getServletRequest().getParameter(VIEW_PARAM))) {
+            bodyContainer.setSerializationView(Views.Summary.class);
+        }
+    }
+
+    /**
+     * Проверка параметра до вызова контроллера: иначе PUT или POST с неверным ?view= успел бы
+     * изменить данные и только потом получить 400.
+     */
+    public static class Interceptor implements HandlerInterceptor {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            String view = request.getParameter(VIEW_PARAM);
+            if (view != null && !view.equals("full") && !view.equals("summary")) {
+                throw new ValidationException("Представление должно быть summary или full");
+            }
+            return true;
+        }
+    }
+}
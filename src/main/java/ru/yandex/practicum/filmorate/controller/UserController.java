@@ -1,27 +1,35 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import lombok.extern.slf4j.Slf4j;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/users")
-@Slf4j
 public class UserController {
+    private static final ResponseEntity<?> NOT_FOUND = ErrorHandler.notFound(UserService.USER_NOT_FOUND);
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
 
     //получаем всех пользователей
@@ -30,10 +38,23 @@ public class UserController {
         return userService.getUsers();
     }
 
-    //получаем пользователь по id
+    //получение пользователей постранично: ?after=<id последнего полученного>&limit=
+    @GetMapping(params = "limit")
+    public Collection<User> getUsersPage(@RequestParam(defaultValue = "0") Long after, @RequestParam Integer limit) {
+        return userService.getUsers(after, limit);
+    }
+
+    //потоковая выдача всех пользователей в формате NDJSON: ?format=ndjson
+    @GetMapping(params = NdjsonStreams.FORMAT_PARAM, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(defaultValue = "0") Long after) {
+        return NdjsonStreams.stream(objectMapper, after, userService::getUsers, User::getId);
+    }
+
+    //получаем пользователь по id; промах отдаётся готовым ответом 404, без исключения
     @GetMapping("/{userId}")
-    public Optional<User> getUser(@PathVariable Long userId) {
-        return userService.getUserById(userId);
+    public ResponseEntity<?> getUser(@PathVariable Long userId) {
+        Optional<User> user = userService.findUserById(userId);
+        return user.isPresent() ? ResponseEntity.ok(user.get()) : NOT_FOUND;
     }
 
     //получаем всех друзей пользователя
@@ -42,18 +63,49 @@ public class UserController {
         return userService.getUserFriends(id);
     }
 
+    //друзья постранично: ?after=<id последнего полученного>&limit=
+    @GetMapping(value = "/{id}/friends", params = "limit")
+    public List<User> getFriendsPage(@PathVariable Long id, @RequestParam(defaultValue = "0") Long after,
+                                     @RequestParam Integer limit) {
+        return userService.getUserFriends(id, after, limit);
+    }
+
     //получаем пересекающихся друзей
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getFriendsCommon(@PathVariable Long id, @PathVariable Long otherId) {
         return userService.getFriendsCommon(id, otherId);
     }
 
+    //получаем количество общих друзей без загрузки самих пользователей
+    @GetMapping("/{id}/friends/common/{otherId}/count")
+    public Map<String, Integer> getFriendsCommonCount(@PathVariable Long id, @PathVariable Long otherId) {
+        return Map.of("count", userService.countFriendsCommon(id, otherId));
+    }
+
+    //предлагаем друзей друзей по числу общих друзей
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
     //добавляем пользователя
     @PostMapping
     public User addUser(@RequestBody User user) {
         return userService.addUser(user);
     }
 
+    //пакетное добавление пользователей: массив JSON
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResult addUsers(@RequestBody List<User> users) {
+        return userService.addUsers(users.iterator());
+    }
+
+    //пакетное добавление пользователей: поток NDJSON
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchResult addUsersStream(InputStream body) throws IOException {
+        return userService.addUsers(NdjsonStreams.read(objectMapper, body, User.class));
+    }
+
     //изменяем пользователя
     @PutMapping
     public User updateUser(@RequestBody User user) {
@@ -66,6 +118,18 @@ public class UserController {
         return userService.addFriend(id, friendId);
     }
 
+    //пакетное добавление дружбы: массив JSON
+    @PutMapping(value = "/friends/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResult addFriends(@RequestBody List<Friendship> friendships) {
+        return userService.addFriends(friendships.iterator());
+    }
+
+    //пакетное добавление дружбы: поток NDJSON
+    @PutMapping(value = "/friends/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchResult addFriendsStream(InputStream body) throws IOException {
+        return userService.addFriends(NdjsonStreams.read(objectMapper, body, Friendship.class));
+    }
+
     //удаляем пользователя по id
     @DeleteMapping("/{userId}")
     public void deleteUser(@PathVariable Long userId) {
@@ -77,23 +141,4 @@ public class UserController {
     public void deleteFriend(@PathVariable Long id, @PathVariable Long friendId) {
         userService.deleteFriend(id, friendId);
     }
-
-    @ExceptionHandler
-    @ResponseStatus(HttpStatus.NOT_FOUND)
-    private Map<String, String> objectNotFound(final SoughtObjectNotFoundException e) {
-        return Map.of("error", e.getMessage());
-    }
-
-    @ExceptionHandler
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    private Map<String, String> handleValidationException(final ValidationException e) {
-        return Map.of("error", e.getMessage());
-    }
-
-    @ExceptionHandler
-    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-    private Map<String, String> handleRuntimeException(final RuntimeException e) {
-        log.error(e.getMessage(), e);
-        return Map.of("error", "Что-то пошло не по плану");
-    }
 }
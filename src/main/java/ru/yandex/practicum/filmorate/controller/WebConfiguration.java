@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Настройка Spring MVC: перехватчики, которые отрабатывают до вызова контроллера.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ResponseViewAdvice.Interceptor());
+    }
+}
@@ -2,11 +2,15 @@ package ru.yandex.practicum.filmorate.exception;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Запрошенный объект не найден. Как и {@link ValidationException}, создаётся без стека: промахи по удалённым
+ * и несуществующим id - обычный трафик, а не ошибка в коде. Ответы 404 пишутся в журнал HTTP.
+ */
 @Slf4j
 public class SoughtObjectNotFoundException extends RuntimeException {
 
     public SoughtObjectNotFoundException(String message) {
-        super(message);
-        log.error(message);
+        super(message, null, false, false);
+        log.debug(message);
     }
 }
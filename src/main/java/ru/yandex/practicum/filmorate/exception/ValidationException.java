@@ -2,10 +2,37 @@ package ru.yandex.practicum.filmorate.exception;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Некорректный запрос. Исключение без стека: это ответ клиенту, а не ошибка в коде, и поток отказов
+ * не должен стоить обхода стека на каждый запрос. Ответы 400 и так пишутся в журнал HTTP,
+ * поэтому здесь - только отладочная запись.
+ */
 @Slf4j
 public class ValidationException extends RuntimeException {
+    //ошибки по полям проверяемого объекта; пусто, если ошибка в параметре запроса
+    private final List<Violation> violations;
+
     public ValidationException(String message) {
-        super(message);
-        log.error(message);
+        this(message, List.of());
+    }
+
+    public ValidationException(List<Violation> violations) {
+        this(violations.stream().map(Violation::message).collect(Collectors.joining("; ")), violations);
+    }
+
+    private ValidationException(String message, List<Violation> violations) {
+        super(message, null, false, false);
+        this.violations = List.copyOf(violations);
+        log.debug(message);
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
+    public record Violation(String field, String message) {
     }
 }
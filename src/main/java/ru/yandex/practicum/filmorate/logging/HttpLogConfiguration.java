@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.time.Duration;
+
+/**
+ * Режим журнала HTTP (filmorate.http-log.mode): full - стратегия Logbook по умолчанию, каждый запрос и ответ
+ * с телами; sampled - выборка плюс ошибки и медленные запросы; off - запросы не буферизуются и не пишутся.
+ */
+@Configuration
+public class HttpLogConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "sampled", matchIfMissing = true)
+    public Strategy sampledStrategy(@Value("${filmorate.http-log.sample-rate}") double sampleRate,
+                                    @Value("${filmorate.http-log.slow-threshold}") Duration slowThreshold) {
+        return new SampledStrategy(sampleRate, slowThreshold);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "off")
+    public Strategy silentStrategy() {
+        return new Strategy() {
+            @Override
+            public HttpRequest process(HttpRequest request) {
+                return request.withoutBody();
+            }
+
+            @Override
+            public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+            }
+
+            @Override
+            public HttpResponse process(HttpRequest request, HttpResponse response) {
+                return response.withoutBody();
+            }
+
+            @Override
+            public void write(Correlation correlation, HttpRequest request,
+                              HttpResponse response, Sink sink) {
+            }
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.ForwardingHttpRequest;
+import org.zalando.logbook.HttpMessage;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Стратегия Logbook с выборкой: полностью (с телами) пишется только доля sampleRate запросов.
+ * Ответы с ошибкой (статус 400 и выше) и запросы дольше slowThreshold пишутся всегда,
+ * поэтому выборка не теряет того, ради чего журнал читают.
+ * Запрос и ответ пишутся одной записью после ответа: для невыбранных запросов тела не буферизуются,
+ * а в журнал не попадает ничего, если запрос быстрый и успешный.
+ */
+public class SampledStrategy implements Strategy {
+    private final double sampleRate;
+    private final Duration slowThreshold;
+
+    public SampledStrategy(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        boolean sampled = sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        return new SampledRequest(sampled ? request.withBody() : request.withoutBody(), sampled);
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        //запрос пишется вместе с ответом, когда известны статус и длительность
+    }
+
+    //решение о буферизации тела принимается до ответа контроллера, поэтому ошибки и медленные запросы
+    //вне выборки пишутся без тел: с методом, адресом, заголовками, статусом и длительностью
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return sampled(request) ? response.withBody() : response.withoutBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        if (sampled(request) || response.getStatus() >= 400
+                || correlation.getDuration().compareTo(slowThreshold) >= 0) {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+    //фильтры Logbook оборачивают запрос, поэтому пометка ищется по цепочке обёрток
+    static boolean sampled(HttpMessage message) {
+        while (message instanceof ForwardingHttpRequest forwarding) {
+            if (forwarding instanceof SampledRequest sampledRequest) return sampledRequest.sampled;
+            message = forwarding.delegate();
+        }
+        return false;
+    }
+
+    private record SampledRequest(HttpRequest delegate, boolean sampled) implements ForwardingHttpRequest {
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Размеры хранилищ: фильмы, пользователи, лайки и записи в списках друзей.
+ * Значения снимаются при каждом опросе реестра, хранилища в памяти отдают готовые счётчики.
+ */
+@Component
+public class StorageMetrics implements MeterBinder {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    @Autowired
+    public StorageMetrics(FilmStorage filmStorage, UserStorage userStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.storage.films", filmStorage, FilmStorage::count)
+                .description("Число фильмов")
+                .register(registry);
+        Gauge.builder("filmorate.storage.likes", filmStorage, FilmStorage::countLikes)
+                .description("Число лайков")
+                .register(registry);
+        Gauge.builder("filmorate.storage.users", userStorage, UserStorage::count)
+                .description("Число пользователей")
+                .register(registry);
+        Gauge.builder("filmorate.storage.friend.links", userStorage, UserStorage::countFriendLinks)
+                .description("Число записей в списках друзей, дружба двух пользователей даёт две")
+                .register(registry);
+    }
+}
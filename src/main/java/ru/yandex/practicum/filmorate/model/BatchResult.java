@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог пакетной операции: сколько элементов применено и ошибки по номерам элементов.
+ * Для добавления сущностей ids совпадает по порядку с входными данными, у отклонённых - null.
+ */
+@Data
+public class BatchResult {
+    private int accepted;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Long> ids;
+    private List<Error> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class Error {
+        private int index;
+        private String error;
+    }
+}
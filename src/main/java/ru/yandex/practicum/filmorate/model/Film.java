@@ -2,12 +2,12 @@ package ru.yandex.practicum.filmorate.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonView;
 import lombok.Data;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.Duration;
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Film.
@@ -20,7 +20,14 @@ public class Film {
     private LocalDate releaseDate;
     private Duration duration;
     @JsonInclude(JsonInclude.Include.NON_EMPTY)
-    private Set<Long> likes = new HashSet<>();
+    @JsonView(Views.Full.class)
+    private LongHashSet likes = new LongHashSet();
+
+    //число лайков есть в любом представлении; сами лайки - в полном и постранично в /films/{id}/likes
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public int getLikesCount() {
+        return likes == null ? 0 : likes.size();
+    }
 
     @JsonProperty("duration")
     public long getDurationMinutes() {
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Число фильмов по годам выхода и по корзинам длительности: 0-30, 30-60, ... 150-180 минут и 180+.
+ */
+@Data
+public class FilmFacets {
+    public static final int BUCKET_MINUTES = 30;
+    public static final int DURATION_BUCKETS = 7;
+
+    private Map<Integer, Long> years = new TreeMap<>();
+    private Map<String, Long> durations = new LinkedHashMap<>();
+
+    public FilmFacets() {
+        for (int bucket = 0; bucket < DURATION_BUCKETS; bucket++) {
+            durations.put(label(bucket), 0L);
+        }
+    }
+
+    public static int bucket(long minutes) {
+        return (int) Math.min(Math.max(minutes, 0) / BUCKET_MINUTES, DURATION_BUCKETS - 1);
+    }
+
+    public static String label(int bucket) {
+        int from = bucket * BUCKET_MINUTES;
+        return bucket == DURATION_BUCKETS - 1 ? from + "+" : from + "-" + (from + BUCKET_MINUTES);
+    }
+
+    public void addYear(int year, long count) {
+        if (count > 0) years.merge(year, count, Long::sum);
+    }
+
+    public void addDuration(int bucket, long count) {
+        durations.merge(label(bucket), count, Long::sum);
+    }
+}
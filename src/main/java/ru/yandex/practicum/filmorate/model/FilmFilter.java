@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Отбор фильмов по дате выхода и длительности в минутах (границы включаются) и порядок выдачи:
+ * sort=popular - по убыванию лайков, иначе по возрастанию id.
+ */
+@Data
+public class FilmFilter {
+    public static final String SORT_ID = "id";
+    public static final String SORT_POPULAR = "popular";
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedTo;
+    private Long minDuration;
+    private Long maxDuration;
+    private String sort;
+
+    public boolean isEmpty() {
+        return !hasReleaseRange() && !hasDurationRange() && sort == null;
+    }
+
+    public boolean hasReleaseRange() {
+        return releasedFrom != null || releasedTo != null;
+    }
+
+    public boolean hasDurationRange() {
+        return minDuration != null || maxDuration != null;
+    }
+
+    public boolean isPopular() {
+        return SORT_POPULAR.equals(sort);
+    }
+
+    public boolean matches(Film film) {
+        if (hasReleaseRange()) {
+            LocalDate releaseDate = film.getReleaseDate();
+            if (releaseDate == null) return false;
+            if (releasedFrom != null && releaseDate.isBefore(releasedFrom)) return false;
+            if (releasedTo != null && releaseDate.isAfter(releasedTo)) return false;
+        }
+        if (hasDurationRange()) {
+            if (film.getDuration() == null) return false;
+            long minutes = film.getDuration().toMinutes();
+            if (minDuration != null && minutes < minDuration) return false;
+            if (maxDuration != null && minutes > maxDuration) return false;
+        }
+        return true;
+    }
+}
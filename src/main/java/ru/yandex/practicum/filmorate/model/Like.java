@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Лайк пользователя фильму - элемент пакетной загрузки.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Like {
+    private Long filmId;
+    private Long userId;
+}
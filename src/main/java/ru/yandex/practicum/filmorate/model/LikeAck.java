@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Подтверждение приёма лайка в асинхронном режиме: изменение принято, но может быть ещё не применено.
+ */
+@Data
+@AllArgsConstructor
+public class LikeAck {
+    private Long filmId;
+    private Long userId;
+    private boolean liked;
+}
@@ -1,11 +1,12 @@
 package ru.yandex.practicum.filmorate.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonView;
 import lombok.Data;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 public class User {
@@ -15,5 +16,12 @@ public class User {
     private String name;
     private LocalDate birthday;
     @JsonInclude(JsonInclude.Include.NON_EMPTY)
-    private Set<Long> friends = new HashSet<>();
+    @JsonView(Views.Full.class)
+    private LongHashSet friends = new LongHashSet();
+
+    //число друзей есть в любом представлении; сами друзья - в полном и постранично в /users/{id}/friends
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public int getFriendsCount() {
+        return friends == null ? 0 : friends.size();
+    }
 }
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Представления ответа (?view=): в кратком вместо множеств лайков и друзей отдаются только их размеры,
+ * полное включает всё. Поля без @JsonView входят в оба.
+ */
+public final class Views {
+
+    public interface Summary {
+    }
+
+    public interface Full extends Summary {
+    }
+
+    private Views() {
+    }
+}
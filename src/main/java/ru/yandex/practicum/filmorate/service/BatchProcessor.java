@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Пакетная обработка: элементы проверяются по одному за проход, прошедшие проверку
+ * отдаются хранилищу кусками по {@link #CHUNK_SIZE}. Ошибка элемента не прерывает пакет.
+ * Элемент, который не удалось прочитать из входного потока, завершает пакет: всё принятое до него
+ * сохраняется, ошибка разбора попадает в итог под его номером.
+ */
+public final class BatchProcessor {
+    public static final int CHUNK_SIZE = 1000;
+
+    private BatchProcessor() {
+    }
+
+    /**
+     * @param validator проверка элемента, бросает {@link ValidationException} или {@link SoughtObjectNotFoundException}
+     * @param writer    запись куска в хранилище
+     * @param idOf      id сохранённого элемента для {@link BatchResult#getIds()}, null - ids не нужны
+     */
+    public static <T> BatchResult process(Iterator<T> items, Consumer<T> validator, Consumer<List<T>> writer,
+                                          Function<T, Long> idOf) {
+        BatchResult result = new BatchResult();
+        if (idOf != null) result.setIds(new ArrayList<>());
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> positions = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+        while (true) {
+            T item;
+            try {
+                if (!items.hasNext()) break;
+                item = items.next();
+            } catch (ValidationException e) {
+                if (idOf != null) result.getIds().add(null);
+                result.getErrors().add(new BatchResult.Error(index, e.getMessage()));
+                break;
+            }
+            String error = validate(item, validator);
+            if (idOf != null) result.getIds().add(null);
+            if (error != null) {
+                result.getErrors().add(new BatchResult.Error(index, error));
+            } else {
+                chunk.add(item);
+                positions.add(index);
+                if (chunk.size() == CHUNK_SIZE) flush(chunk, positions, writer, idOf, result);
+            }
+            index++;
+        }
+        flush(chunk, positions, writer, idOf, result);
+        return result;
+    }
+
+    private static <T> String validate(T item, Consumer<T> validator) {
+        if (item == null) return "Пустой элемент";
+        try {
+            validator.accept(item);
+            return null;
+        } catch (ValidationException | SoughtObjectNotFoundException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static <T> void flush(List<T> chunk, List<Integer> positions, Consumer<List<T>> writer,
+                                  Function<T, Long> idOf, BatchResult result) {
+        if (chunk.isEmpty()) return;
+        writer.accept(chunk);
+        if (idOf != null) {
+            for (int i = 0; i < chunk.size(); i++) {
+                result.getIds().set(positions.get(i), idOf.apply(chunk.get(i)));
+            }
+        }
+        result.setAccepted(result.getAccepted() + chunk.size());
+        chunk.clear();
+        positions.clear();
+    }
+}
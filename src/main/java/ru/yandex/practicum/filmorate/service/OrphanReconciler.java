@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая сверка хранилищ в памяти: находит и убирает ссылки на удалённых пользователей - их id в чужих
+ * списках друзей и их лайки. Удаление пользователя снимает их само, сирот оставляют гонки (лайк, проверенный
+ * до удаления и применённый после) и сбой между записями журнала. Друзья обходятся постранично за O(всех
+ * связей), лайки - по обратному индексу за O(числа лайкнувших). В базе ссылки держат внешние ключи.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
+public class OrphanReconciler implements MeterBinder {
+    private static final int PAGE_SIZE = 1_000;
+
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final UserService userService;
+    private final FilmService filmService;
+    private final AtomicLong orphanFriends = new AtomicLong();
+    private final AtomicLong orphanLikes = new AtomicLong();
+
+    @Autowired
+    public OrphanReconciler(UserStorage userStorage, FilmStorage filmStorage, UserService userService,
+                            FilmService filmService) {
+        this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
+        this.userService = userService;
+        this.filmService = filmService;
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.reconcile.interval}",
+            fixedDelayString = "${filmorate.reconcile.interval}")
+    public Result reconcile() {
+        long started = System.nanoTime();
+        long friends = 0;
+        List<User> page = userStorage.getUsers(0, PAGE_SIZE);
+        while (!page.isEmpty()) {
+            for (User user : page) {
+                for (long friendId : user.getFriends().toLongArray()) {
+                    if (userStorage.getUser(friendId) != null) continue;
+                    userService.removeOrphanFriend(user.getId(), friendId);
+                    friends++;
+                }
+            }
+            page = userStorage.getUsers(page.get(page.size() - 1).getId(), PAGE_SIZE);
+        }
+        long likes = 0;
+        for (long userId : filmStorage.getLikers()) {
+            if (userStorage.getUser(userId) == null) likes += filmService.removeUserLikes(userId);
+        }
+        orphanFriends.addAndGet(friends);
+        orphanLikes.addAndGet(likes);
+        Result result = new Result(friends, likes);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        if (friends > 0 || likes > 0) {
+            log.warn("Сверка хранилищ за {} мс убрала ссылки на удалённых пользователей: друзей {}, лайков {}",
+                    millis, friends, likes);
+        } else {
+            log.debug("Сверка хранилищ за {} мс: ссылок на удалённых пользователей нет", millis);
+        }
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.reconcile.orphans", orphanFriends, AtomicLong::get)
+                .tag("kind", "friend")
+                .description("Убранные сверкой записи о дружбе с удалёнными пользователями")
+                .register(registry);
+        FunctionCounter.builder("filmorate.reconcile.orphans", orphanLikes, AtomicLong::get)
+                .tag("kind", "like")
+                .description("Убранные сверкой лайки удалённых пользователей")
+                .register(registry);
+    }
+
+    //число убранных ссылок: записей в списках друзей и лайков
+    public record Result(long friends, long likes) {
+    }
+}
@@ -1,102 +1,296 @@
 package ru.yandex.practicum.filmorate.service.film;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.CatalogVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCache;
 import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeAck;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BatchProcessor;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
 
-import java.time.LocalDate;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class FilmService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String FILM_NOT_FOUND = "Фильм не найден";
+    private static final Pattern WINDOW = Pattern.compile("(\\d{1,6})([hd])");
+    private static final String TRENDING_WINDOW_NAMES = "1d, 7d, 30d";
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final ResponseCache responseCache;
+    private final CatalogVersions versions;
+    //null - асинхронный приём лайков выключен
+    private final LikeIngestor likeIngestor;
 
-    @Autowired
     public FilmService(FilmStorage filmStorage, UserStorage userStorage) {
+        this(filmStorage, userStorage, ResponseCache.NONE, new CatalogVersions());
+    }
+
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, ResponseCache responseCache,
+                       CatalogVersions versions) {
+        this(filmStorage, userStorage, responseCache, versions, (LikeIngestor) null);
+    }
+
+    @Autowired
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, ResponseCache responseCache,
+                       CatalogVersions versions, ObjectProvider<LikeIngestor> likeIngestor) {
+        this(filmStorage, userStorage, responseCache, versions, likeIngestor.getIfAvailable());
+    }
+
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, ResponseCache responseCache,
+                       CatalogVersions versions, LikeIngestor likeIngestor) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.responseCache = responseCache;
+        this.versions = versions;
+        this.likeIngestor = likeIngestor;
+        if (likeIngestor != null) likeIngestor.onApplied(this::changed);
     }
 
     public Collection<Film> getFilms() {
         return filmStorage.getFilms();
     }
 
+    public List<Film> getFilms(Long after, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        return filmStorage.getFilms(after == null ? 0 : after, limit);
+    }
+
+    //без фильтра - все фильмы, с фильтром - все подходящие
+    public Collection<Film> getFilms(FilmFilter filter) {
+        if (filter.isEmpty()) return getFilms();
+        validateFilter(filter, null);
+        return filmStorage.getFilms(filter, 0, Integer.MAX_VALUE);
+    }
+
+    public List<Film> getFilms(FilmFilter filter, Long after, Integer limit) {
+        if (filter.isEmpty()) return getFilms(after, limit);
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        validateFilter(filter, after);
+        return filmStorage.getFilms(filter, after == null ? 0 : after, limit);
+    }
+
+    public FilmFacets getFacets() {
+        return filmStorage.getFacets();
+    }
+
     public Optional<Film> getFilmById(Long id) {
-        return Optional.ofNullable(filmStorage.getFilm(id))
-                .or(() -> {
-                    throw new SoughtObjectNotFoundException("Фильм не найден");
-                });
+        Optional<Film> film = findFilmById(id);
+        if (film.isEmpty()) throw new SoughtObjectNotFoundException(FILM_NOT_FOUND);
+        return film;
+    }
+
+    //как getFilmById, но промах - пустой результат, а не исключение: для чтения по id, где промахи частые
+    public Optional<Film> findFilmById(Long id) {
+        //лайки, принятые асинхронно до чтения, должны быть видны
+        if (likeIngestor != null) likeIngestor.awaitFilm(id);
+        Film film = filmStorage.getFilm(id);
+        return film == null ? Optional.empty() : Optional.of(film);
     }
 
     public Collection<Film> getPopularFilms(Long count) {
-        return filmStorage.getFilms().stream()
-                .sorted((f1, f2) -> Long.compare(f2.getLikes().size(), f1.getLikes().size()))
-                .limit(count)
-                .collect(Collectors.toList());
+        if (count == null || count <= 0) throw new ValidationException("Количество фильмов должно быть положительным");
+        //списки не ждут асинхронных лайков: чтение своих изменений гарантируется только для фильма по id
+        return filmStorage.getPopularFilms(count);
+    }
+
+    //лайкнувшие фильм постранично: ?after=<id последнего полученного>&limit=
+    public long[] getLikes(Long filmId, Long after, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        getFilmById(filmId);
+        return filmStorage.getLikes(filmId, after == null ? 0 : after, limit);
+    }
+
+    //window - 1d, 7d, 30d: постоянная времени затухания лайков
+    public List<Film> getTrendingFilms(String window, Integer count) {
+        Duration duration = parseWindow(window);
+        if (duration == null || !FilmStorage.TRENDING_WINDOWS.contains(duration))
+            throw new ValidationException("Окно должно быть одним из: " + TRENDING_WINDOW_NAMES);
+        if (count == null || count <= 0 || count > MAX_PAGE_SIZE)
+            throw new ValidationException("Количество фильмов должно быть от 1 до " + MAX_PAGE_SIZE);
+        return filmStorage.getTrendingFilms(duration, count);
+    }
+
+    public List<Film> getRecommendations(Long userId, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_PAGE_SIZE);
+        if (userStorage.getUser(userId) == null) throw new SoughtObjectNotFoundException("Пользователь не найден");
+        if (likeIngestor != null) likeIngestor.awaitAll();
+        return filmStorage.getRecommendations(userId, limit);
+    }
+
+    public List<Film> searchFilms(String query, Integer limit) {
+        if (query == null || query.isBlank()) throw new ValidationException("Пустой поисковый запрос");
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Размер выдачи должен быть от 1 до " + MAX_PAGE_SIZE);
+        return filmStorage.searchFilms(query, limit);
     }
 
     public Film addFilm(Film film) {
-        validateFilm(film);
-        film.setId(getNextId());
-        return filmStorage.addFilm(film);
+        FilmValidator.validate(film);
+        film.setId(filmStorage.nextId());
+        filmStorage.addFilm(film);
+        changed(film);
+        return film;
+    }
+
+    //пакетное добавление: ids выдаются блоком на кусок, хранилище пишет кусок целиком
+    public BatchResult addFilms(Iterator<Film> films) {
+        return BatchProcessor.process(films, FilmValidator::validate, chunk -> {
+            long[] ids = filmStorage.nextIds(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(ids[i]);
+            }
+            filmStorage.addFilms(chunk);
+            chunk.forEach(this::changed);
+        }, Film::getId);
     }
 
     public Film updateFilm(Film film) {
-        validateFilm(film);
+        FilmValidator.validate(film);
+        //без id обновлять нечего: хранилища не принимают null-ключ
+        if (film.getId() == null) throw new SoughtObjectNotFoundException(FILM_NOT_FOUND);
         getFilmById(film.getId());
-        return filmStorage.updateFilm(film);
+        filmStorage.updateFilm(film);
+        changed(film);
+        return film;
     }
 
     public Film likeFilm(Long filmId, Long userId) {
         Optional<Film> film = getFilmById(filmId);
         User user = userStorage.getUser(userId);
         if (film.isPresent() && user != null) {
-            film.get().getLikes().add(user.getId());
+            filmStorage.addLike(filmId, user.getId());
+            changed(filmId);
         } else {
             throw new SoughtObjectNotFoundException("Некорректный идентификатор фильма или пользователя");
         }
-        return film.orElse(null);
+        return filmStorage.getFilm(filmId);
+    }
+
+    public boolean isLikesAsync() {
+        return likeIngestor != null;
+    }
+
+    //асинхронный лайк или его снятие: проверка сразу, применение - пачкой в фоне
+    public LikeAck submitLike(Long filmId, Long userId, boolean like) {
+        if (likeIngestor == null) throw new IllegalStateException("Асинхронный приём лайков выключен");
+        if (filmStorage.getFilm(filmId) == null || userStorage.getUser(userId) == null)
+            throw new SoughtObjectNotFoundException("Некорректный идентификатор фильма или пользователя");
+        likeIngestor.submit(filmId, userId, like);
+        //новая версия сразу: условный запрос не получит 304, а кэш - ответ без принятого лайка
+        changed(filmId);
+        return new LikeAck(filmId, userId, like);
+    }
+
+    public BatchResult likeFilms(Iterator<Like> likes) {
+        //существование фильмов и пользователей проверяется один раз на пакет
+        Set<Long> films = new HashSet<>();
+        Set<Long> users = new HashSet<>();
+        return BatchProcessor.process(likes, like -> {
+            if (like.getFilmId() == null || like.getUserId() == null)
+                throw new ValidationException("Не заполнены обязательные поля");
+            if (!films.contains(like.getFilmId()) && filmStorage.getFilm(like.getFilmId()) == null
+                    || !users.contains(like.getUserId()) && userStorage.getUser(like.getUserId()) == null)
+                throw new SoughtObjectNotFoundException("Некорректный идентификатор фильма или пользователя");
+            films.add(like.getFilmId());
+            users.add(like.getUserId());
+        }, chunk -> {
+            filmStorage.addLikes(chunk);
+            chunk.stream().map(Like::getFilmId).distinct().forEach(this::changed);
+        }, null);
     }
 
     public void removeFilm(Long id) {
-        if (filmStorage.getFilm(id) != null) filmStorage.removeFilm(id);
-        else throw new SoughtObjectNotFoundException("Некорректный идентификатор фильма");
+        if (filmStorage.getFilm(id) == null) throw new SoughtObjectNotFoundException("Некорректный идентификатор фильма");
+        filmStorage.removeFilm(id);
+        changed(id);
+    }
+
+    /**
+     * Каскад удаления пользователя: его лайки снимаются по обратному индексу, меняются только его фильмы.
+     * Сначала дописываются принятые асинхронно лайки, иначе они легли бы уже после каскада.
+     *
+     * @return число фильмов, лишившихся лайка
+     */
+    public int removeUserLikes(long userId) {
+        if (likeIngestor != null) likeIngestor.awaitAll();
+        long[] filmIds = filmStorage.removeUserLikes(userId);
+        for (long filmId : filmIds) {
+            changed(filmId);
+        }
+        return filmIds.length;
     }
 
     public void deleteLikeFilm(Long filmId, Long userId) {
         Optional<Film> film = getFilmById(filmId);
         User user = userStorage.getUser(userId);
         if (film.isPresent() && user != null) {
-            film.get().getLikes().remove(user.getId());
+            filmStorage.removeLike(filmId, user.getId());
+            changed(filmId);
         } else {
             throw new SoughtObjectNotFoundException("Некорректный идентификатор фильма или пользователя");
         }
     }
 
-    private void validateFilm(Film film) {
-        if (film.getName().isEmpty()) throw new ValidationException("Необходимо заполнить название фильма");
-        if (film.getDescription().length() > 200) throw new ValidationException("Описание фильма не должно "
-                + "превышать 200 символов");
-        if (film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28)))
-            throw new ValidationException("На момент этой даты не было ни одного фильма =)");
-        if (film.getDuration().isNegative()) throw new ValidationException("Дружочек, у тебя длина "
-                + "фильма отрицательная");
+    //новая версия фильма и каталога, сброс закэшированного ответа
+    private void changed(long id) {
+        versions.filmChanged(id);
+        responseCache.invalidate(ResponseCache.film(id));
     }
 
-    private long getNextId() {
-        long currentMaxId = filmStorage.getFilms()
-                .stream()
-                .mapToLong(Film::getId)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    private void changed(Film film) {
+        changed(film.getId());
     }
+
+    private static Duration parseWindow(String window) {
+        Matcher matcher = window == null ? null : WINDOW.matcher(window);
+        if (matcher == null || !matcher.matches()) return null;
+        long amount = Long.parseLong(matcher.group(1));
+        return matcher.group(2).equals("d") ? Duration.ofDays(amount) : Duration.ofHours(amount);
+    }
+
+    private void validateFilter(FilmFilter filter, Long after) {
+        if (filter.getSort() != null && !FilmFilter.SORT_ID.equals(filter.getSort()) && !filter.isPopular())
+            throw new ValidationException("Сортировка должна быть " + FilmFilter.SORT_ID + " или "
+                    + FilmFilter.SORT_POPULAR);
+        if (filter.isPopular() && after != null && after > 0)
+            throw new ValidationException("Параметр after применим только к сортировке по id");
+        if (filter.getReleasedFrom() != null && filter.getReleasedTo() != null
+                && filter.getReleasedFrom().isAfter(filter.getReleasedTo()))
+            throw new ValidationException("Начало периода выхода позже его конца");
+        if (filter.getMinDuration() != null && filter.getMinDuration() < 0
+                || filter.getMaxDuration() != null && filter.getMaxDuration() < 0)
+            throw new ValidationException("Длительность не может быть отрицательной");
+        if (filter.getMinDuration() != null && filter.getMaxDuration() != null
+                && filter.getMinDuration() > filter.getMaxDuration())
+            throw new ValidationException("Минимальная длительность больше максимальной");
+    }
+
 }
@@ -0,0 +1,236 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Асинхронный приём лайков. Изменения раскладываются по шардам по id фильма: у шарда ограниченная очередь
+ * и единственный поток-писатель, поэтому лайки одного фильма не спорят за его блокировку.
+ * Писатель забирает очередь пачкой, схлопывает повторы (для пары фильм-пользователь остаётся последнее
+ * изменение) и применяет пачку двумя вызовами хранилища, по фильму - под одной блокировкой.
+ * Заполненная очередь не ждёт, а отклоняет изменение.
+ * Чтение фильма дожидается изменений, принятых в его шард раньше чтения: пользователь видит свои лайки.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.async.enabled", havingValue = "true")
+public class LikeIngestor implements MeterBinder, Closeable {
+    private static final int MAX_BATCH = 4_096;
+    //дольше чтение не ждёт: отстающий писатель не должен останавливать чтения
+    private static final long AWAIT_MILLIS = 1_000;
+
+    private final FilmStorage filmStorage;
+    private final Shard[] shards;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    //вызывается после применения пачки для каждого изменённого фильма
+    private volatile LongConsumer listener = filmId -> {
+    };
+
+    @Autowired
+    public LikeIngestor(FilmStorage filmStorage,
+                        @Value("${filmorate.likes.async.shards}") int shards,
+                        @Value("${filmorate.likes.async.queue-size}") int queueSize) {
+        this.filmStorage = filmStorage;
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(Math.max(1, queueSize / shards));
+            Thread writer = new Thread(this.shards[i]::writeLoop, "like-writer-" + i);
+            writer.setDaemon(true);
+            this.shards[i].writer = writer;
+            writer.start();
+        }
+    }
+
+    public void onApplied(LongConsumer listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Ставит изменение в очередь шарда фильма.
+     *
+     * @throws ServiceOverloadedException очередь шарда заполнена
+     */
+    public void submit(long filmId, long userId, boolean like) {
+        Shard shard = shard(filmId);
+        shard.enqueueLock.lock();
+        try {
+            //номер выдаётся под блокировкой: порядок номеров совпадает с порядком в очереди
+            long sequence = shard.enqueued + 1;
+            if (!shard.queue.offer(new Change(filmId, userId, like, sequence))) {
+                rejected.incrementAndGet();
+                throw new ServiceOverloadedException("Очередь лайков переполнена, повторите запрос позже");
+            }
+            shard.enqueued = sequence;
+        } finally {
+            shard.enqueueLock.unlock();
+        }
+    }
+
+    //ждёт применения изменений фильма, принятых до вызова
+    public void awaitFilm(long filmId) {
+        shard(filmId).await();
+    }
+
+    //ждёт применения всех изменений, принятых до вызова
+    public void awaitAll() {
+        for (Shard shard : shards) {
+            shard.await();
+        }
+    }
+
+    public int queued() {
+        int queued = 0;
+        for (Shard shard : shards) {
+            queued += shard.queue.size();
+        }
+        return queued;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.likes.queue", this, LikeIngestor::queued)
+                .description("Лайки, ожидающие применения")
+                .register(registry);
+        FunctionCounter.builder("filmorate.likes.rejected", rejected, AtomicLong::get)
+                .description("Лайки, отклонённые из-за переполнения очереди")
+                .register(registry);
+        FunctionCounter.builder("filmorate.likes.dropped", dropped, AtomicLong::get)
+                .description("Принятые лайки, которые не удалось применить: фильм или пользователь уже удалён")
+                .register(registry);
+    }
+
+    //принятые лайки уже подтверждены клиенту: перед остановкой очереди дописываются
+    @Override
+    public void close() {
+        awaitAll();
+        for (Shard shard : shards) {
+            shard.writer.interrupt();
+        }
+    }
+
+    private Shard shard(long filmId) {
+        //перемешивание SplitMix64: соседние id расходятся по разным шардам
+        long z = filmId * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return shards[(int) Long.remainderUnsigned(z ^ (z >>> 31), shards.length)];
+    }
+
+    private final class Shard {
+        private final BlockingQueue<Change> queue;
+        private final Lock enqueueLock = new ReentrantLock();
+        private final Lock appliedLock = new ReentrantLock();
+        private final Condition advanced = appliedLock.newCondition();
+        private volatile long enqueued;
+        private volatile long applied;
+        private Thread writer;
+
+        private Shard(int capacity) {
+            queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void await() {
+            long target = enqueued;
+            if (applied >= target) return;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AWAIT_MILLIS);
+            appliedLock.lock();
+            try {
+                while (applied < target) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        log.warn("Лайки не применены за {} мс, чтение может их не увидеть", AWAIT_MILLIS);
+                        return;
+                    }
+                    advanced.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                appliedLock.unlock();
+            }
+        }
+
+        private void writeLoop() {
+            List<Change> batch = new ArrayList<>(MAX_BATCH);
+            while (true) {
+                batch.clear();
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                apply(batch);
+                appliedLock.lock();
+                try {
+                    applied = batch.get(batch.size() - 1).sequence();
+                    advanced.signalAll();
+                } finally {
+                    appliedLock.unlock();
+                }
+            }
+        }
+
+        private void apply(List<Change> batch) {
+            //последнее изменение пары фильм-пользователь отменяет предыдущие
+            Map<Like, Boolean> latest = new LinkedHashMap<>();
+            for (Change change : batch) {
+                latest.put(new Like(change.filmId(), change.userId()), change.like());
+            }
+            List<Like> likes = new ArrayList<>();
+            List<Like> unlikes = new ArrayList<>();
+            latest.forEach((like, liked) -> (liked ? likes : unlikes).add(like));
+            try {
+                if (!likes.isEmpty()) filmStorage.addLikes(likes);
+                if (!unlikes.isEmpty()) filmStorage.removeLikes(unlikes);
+            } catch (RuntimeException e) {
+                //изменения уже подтверждены клиенту: пачку повторяем по одному и теряем только сбойные
+                log.warn("Пачка лайков не применена целиком, изменения применяются по одному", e);
+                latest.forEach(this::applyOne);
+            }
+            latest.keySet().stream().mapToLong(Like::getFilmId).distinct().forEach(listener);
+        }
+
+        //повтор идемпотентен: уже применённая часть пачки пропускается хранилищем
+        private void applyOne(Like like, boolean liked) {
+            try {
+                if (liked) {
+                    filmStorage.addLikes(List.of(like));
+                } else {
+                    filmStorage.removeLikes(List.of(like));
+                }
+            } catch (RuntimeException e) {
+                dropped.incrementAndGet();
+                log.error("Лайк фильма {} пользователем {} не применён", like.getFilmId(), like.getUserId(), e);
+            }
+        }
+    }
+
+    private record Change(long filmId, long userId, boolean like, long sequence) {
+    }
+}
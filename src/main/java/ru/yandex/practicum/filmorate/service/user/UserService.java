@@ -1,101 +1,248 @@
 package ru.yandex.practicum.filmorate.service.user;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.CatalogVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCache;
 import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BatchProcessor;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
 
-import java.time.LocalDate;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class UserService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String USER_NOT_FOUND = "Пользователя с таким Id не сущесвтует";
 
     private final UserStorage userStorage;
+    //null - лайки удалённого пользователя не снимаются: сервис работает без фильмов
+    private final FilmService filmService;
+    private final ResponseCache responseCache;
+    private final CatalogVersions versions;
 
-    @Autowired
     public UserService(UserStorage userStorage) {
+        this(userStorage, null);
+    }
+
+    public UserService(UserStorage userStorage, FilmService filmService) {
+        this(userStorage, filmService, ResponseCache.NONE, new CatalogVersions());
+    }
+
+    @Autowired
+    public UserService(UserStorage userStorage, FilmService filmService, ResponseCache responseCache,
+                       CatalogVersions versions) {
         this.userStorage = userStorage;
+        this.filmService = filmService;
+        this.responseCache = responseCache;
+        this.versions = versions;
     }
 
     public Optional<User> getUserById(Long id) {
-        return Optional.ofNullable(userStorage.getUser(id))
-                .or(() -> {
-                    throw new SoughtObjectNotFoundException("Пользователя с таким Id не сущесвтует");
-                });
+        Optional<User> user = findUserById(id);
+        if (user.isEmpty()) throw new SoughtObjectNotFoundException(USER_NOT_FOUND);
+        return user;
+    }
+
+    //как getUserById, но промах - пустой результат, а не исключение
+    public Optional<User> findUserById(Long id) {
+        User user = userStorage.getUser(id);
+        return user == null ? Optional.empty() : Optional.of(user);
     }
 
     public Collection<User> getUsers() {
         return userStorage.getUsers();
     }
 
+    public List<User> getUsers(Long after, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        return userStorage.getUsers(after == null ? 0 : after, limit);
+    }
+
     public Collection<User> getUserFriends(Long id) {
+        //друг может быть удалён между чтением списка и чтением друга
         return userStorage.getUser(id).getFriends().stream()
-                .map(userStorage::getUser).collect(Collectors.toSet());
+                .map(userStorage::getUser).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    //друзья постранично: ?after=<id последнего полученного>&limit=
+    public List<User> getUserFriends(Long id, Long after, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        getUserById(id);
+        return userStorage.getFriends(id, after == null ? 0 : after, limit);
     }
 
     public Collection<User> getFriendsCommon(Long userId, Long otherUserId) {
-        return userStorage.getUser(userId).getFriends().stream()
-                .filter(userStorage.getUser(otherUserId).getFriends()::contains)
-                .map(userStorage::getUser).collect(Collectors.toSet());
+        checkUsersExist(userId, otherUserId);
+        return userStorage.getCommonFriends(userId, otherUserId);
+    }
+
+    public int countFriendsCommon(Long userId, Long otherUserId) {
+        checkUsersExist(userId, otherUserId);
+        return userStorage.countCommonFriends(userId, otherUserId);
+    }
+
+    public List<User> getFriendSuggestions(Long userId, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ValidationException("Количество предложений должно быть от 1 до " + MAX_PAGE_SIZE);
+        getUserById(userId);
+        return userStorage.getFriendSuggestions(userId, limit);
     }
 
     public User addUser(User user) {
         validateUser(user);
-        user.setId(getNextId());
-        return userStorage.addUser(user);
+        user.setId(userStorage.nextId());
+        userStorage.addUser(user);
+        changed(user);
+        return user;
+    }
+
+    //пакетное добавление: ids выдаются блоком на кусок, хранилище пишет кусок целиком
+    public BatchResult addUsers(Iterator<User> users) {
+        return BatchProcessor.process(users, this::validateUser, chunk -> {
+            long[] ids = userStorage.nextIds(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(ids[i]);
+            }
+            userStorage.addUsers(chunk);
+            chunk.forEach(this::changed);
+        }, User::getId);
     }
 
     public User updateUser(User user) {
         validateUser(user);
-        getUserById(user.getId());
-        return userStorage.updateUser(user);
+        //без id обновлять нечего: хранилища не принимают null-ключ
+        if (user.getId() == null) throw new SoughtObjectNotFoundException(USER_NOT_FOUND);
+        LongHashSet before = LongHashSet.of(getUserById(user.getId()).get().getFriends().toLongArray());
+        userStorage.updateUser(user);
+        //прежние друзья тоже теряют пользователя из своих списков
+        for (long friendId : before.toLongArray()) {
+            responseCache.invalidate(ResponseCache.friends(friendId));
+        }
+        changed(user);
+        //дружба симметрична: у добавленных и убранных обновлением друзей изменился их собственный список
+        for (long friendId : before.toLongArray()) {
+            if (!user.getFriends().contains(friendId)) changed(friendId);
+        }
+        for (long friendId : user.getFriends().toLongArray()) {
+            if (!before.contains(friendId)) changed(friendId);
+        }
+        return user;
     }
 
     public User addFriend(Long id, Long friendId) {
         User user = userStorage.getUser(id);
         User friend = userStorage.getUser(friendId);
         if (user != null && friend != null) {
-            user.getFriends().add(friendId);
-            friend.getFriends().add(id);
+            userStorage.addFriend(id, friendId);
+            changed(id);
+            changed(friendId);
         } else
             throw new SoughtObjectNotFoundException("Не найден пользователь(и) с указаным идентификатором");
-        return user;
+        return userStorage.getUser(id);
     }
 
+    public BatchResult addFriends(Iterator<Friendship> friendships) {
+        //существование пользователей проверяется один раз на пакет
+        Set<Long> users = new HashSet<>();
+        return BatchProcessor.process(friendships, friendship -> {
+            Long id = friendship.getUserId();
+            Long friendId = friendship.getFriendId();
+            if (id == null || friendId == null) throw new ValidationException("Не заполнены обязательные поля");
+            if (!users.contains(id) && userStorage.getUser(id) == null
+                    || !users.contains(friendId) && userStorage.getUser(friendId) == null)
+                throw new SoughtObjectNotFoundException("Не найден пользователь(и) с указаным идентификатором");
+            users.add(id);
+            users.add(friendId);
+        }, chunk -> {
+            userStorage.addFriendships(chunk);
+            Set<Long> changed = new HashSet<>();
+            for (Friendship friendship : chunk) {
+                changed.add(friendship.getUserId());
+                changed.add(friendship.getFriendId());
+            }
+            changed.forEach(this::changed);
+        }, null);
+    }
+
+    /**
+     * Удаление с каскадом по обратным индексам: сначала лайки пользователя, затем он сам вместе с записями
+     * в списках друзей. При сбое между шагами в журнале останется пользователь без лайков, а не лайки
+     * без пользователя. Лайк, проверенный до удаления и применённый после, уберёт OrphanReconciler.
+     */
     public void removeUser(Long id) {
-        if (userStorage.getUser(id) != null) {
-            userStorage.removeUser(id);
-        } else
+        User user = userStorage.getUser(id);
+        if (user == null)
             throw new SoughtObjectNotFoundException("Не найден пользователь с указанным идентификатором");
+        if (filmService != null) filmService.removeUserLikes(id);
+        long[] friendIds = user.getFriends().toLongArray();
+        userStorage.removeUser(id);
+        changed(user);
+        for (long friendId : friendIds) {
+            changed(friendId);
+        }
+    }
+
+    //сверка: убирает из списка друзей id пользователя, которого уже нет
+    public void removeOrphanFriend(long id, long friendId) {
+        userStorage.removeFriend(id, friendId);
+        changed(id);
     }
 
     public void deleteFriend(Long id, Long friendId) {
         if (userStorage.getUser(id) == null || userStorage.getUser(friendId) == null) {
             throw new SoughtObjectNotFoundException("Не найден пользователь(и) с указаным идентификатором");
         }
-        userStorage.getUser(id).getFriends().remove(friendId);
-        userStorage.getUser(friendId).getFriends().remove(id);
+        userStorage.removeFriend(id, friendId);
+        changed(id);
+        changed(friendId);
     }
 
-    private void validateUser(User user) {
-        if (user.getLogin().isEmpty() || user.getLogin().contains(" "))
-            throw new ValidationException("Некорректный логин");
-        if (user.getBirthday().isAfter(LocalDate.now()))
-            throw new ValidationException("Ты еще не родился. Попробуй попозже");
-        if (user.getName() == null || user.getName().isEmpty()) user.setName(user.getLogin());
-        Pattern pattern = Pattern.compile("^(?=.{1,64}@)[A-Za-z0-9_-]+(\\.[A-Za-z0-9_-]+)*@" + "[^-][A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*(\\.[A-Za-z]{2,})$");
-        if (user.getEmail() == null || user.getEmail().isEmpty() || !pattern.matcher(user.getEmail()).matches())
-            throw new ValidationException("Некорректный формат E-mail");
+    private void changed(long id) {
+        User user = userStorage.getUser(id);
+        if (user != null) changed(user);
+    }
+
+    //новая версия пользователя и каталога, сброс закэшированных ответов
+    private void changed(User user) {
+        versions.userChanged(user.getId());
+        evict(user);
+    }
+
+    //пользователь входит в свой ответ, в свой список друзей (через поле friends) и в списки друзей своих друзей
+    private void evict(User user) {
+        responseCache.invalidate(ResponseCache.user(user.getId()));
+        responseCache.invalidate(ResponseCache.friends(user.getId()));
+        for (long friendId : user.getFriends().toLongArray()) {
+            responseCache.invalidate(ResponseCache.friends(friendId));
+        }
     }
 
-    private long getNextId() {
-        long currentMaxId = userStorage.getUsers().stream().mapToLong(User::getId).max().orElse(0);
-        return ++currentMaxId;
+    private void checkUsersExist(Long id, Long otherId) {
+        if (userStorage.getUser(id) == null || userStorage.getUser(otherId) == null)
+            throw new SoughtObjectNotFoundException("Не найден пользователь(и) с указаным идентификатором");
+    }
+
+    private void validateUser(User user) {
+        UserValidator.validate(user);
+        if (user.getName() == null || user.getName().isEmpty()) user.setName(user.getLogin());
     }
 }
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Последовательности id в базе. Пакетная загрузка и восстановление вставляют строки с готовыми id,
+ * и последовательность нужно перевести за наибольший из них, иначе NEXT VALUE выдаст занятый id.
+ */
+public final class DbSequences {
+
+    private DbSequences() {
+    }
+
+    //ALTER SEQUENCE в H2 не завершает текущую транзакцию; уже выданные значения не возвращаются назад
+    public static void advancePast(JdbcTemplate jdbcTemplate, String sequence, long maxId) {
+        Long next = jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE SEQUENCE_NAME = ?", Long.class, sequence.toUpperCase());
+        if (next != null && next > maxId) return;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + 1));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Журнал изменений in-memory хранилищ.
+ * Хранилище вызывает методы журнала под блокировкой сущности, поэтому порядок записей
+ * совпадает с порядком изменений. Дождаться возвращённого future нужно уже после снятия
+ * блокировки: так несколько запросов фиксируются на диске одной записью (group commit).
+ */
+public interface StorageJournal {
+    CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+    StorageJournal NONE = new StorageJournal() {
+    };
+
+    default CompletableFuture<Void> filmSaved(Film film) {
+        return DONE;
+    }
+
+    default CompletableFuture<Void> filmRemoved(long id) {
+        return DONE;
+    }
+
+    //likedAt - время постановки лайка, null - неизвестно
+    default CompletableFuture<Void> liked(long filmId, long userId, Instant likedAt) {
+        return DONE;
+    }
+
+    default CompletableFuture<Void> unliked(long filmId, long userId) {
+        return DONE;
+    }
+
+    default CompletableFuture<Void> userSaved(User user) {
+        return DONE;
+    }
+
+    default CompletableFuture<Void> userRemoved(long id) {
+        return DONE;
+    }
+
+    default CompletableFuture<Void> friended(long id, long friendId) {
+        return DONE;
+    }
+
+    default CompletableFuture<Void> unfriended(long id, long friendId) {
+        return DONE;
+    }
+}
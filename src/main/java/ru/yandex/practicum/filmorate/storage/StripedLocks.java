@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Набор блокировок, распределённых по идентификаторам сущностей.
+ * Изменения разных сущностей идут параллельно, одной и той же - последовательно.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public Lock get(long id) {
+        return locks[index(id)];
+    }
+
+    //захватывает блокировки двух сущностей в фиксированном порядке, чтобы не получить взаимоблокировку
+    public void lockBoth(long first, long second) {
+        int a = index(first);
+        int b = index(second);
+        locks[Math.min(a, b)].lock();
+        if (a != b) locks[Math.max(a, b)].lock();
+    }
+
+    public void unlockBoth(long first, long second) {
+        int a = index(first);
+        int b = index(second);
+        if (a != b) locks[Math.max(a, b)].unlock();
+        locks[Math.min(a, b)].unlock();
+    }
+
+    private int index(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
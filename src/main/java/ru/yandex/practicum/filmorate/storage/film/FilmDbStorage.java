@@ -0,0 +1,381 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.DbSequences;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db")
+public class FilmDbStorage implements FilmStorage {
+    private static final String SEQUENCE = "film_id_seq";
+    private static final String SELECT_FILMS = "SELECT id, name, description, release_date, duration FROM films ";
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        Date releaseDate = rs.getDate("release_date");
+        film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+        film.setDurationMinutes(rs.getLong("duration"));
+        return film;
+    };
+
+    //фильм или пользователь могли быть удалены после проверки в сервисе: такой лайк пропускается
+    private static final String INSERT_LIKE = "INSERT INTO film_likes (film_id, user_id, liked_at) "
+            + "SELECT ?, ?, CAST(? AS TIMESTAMP WITH TIME ZONE) "
+            + "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?) "
+            + "AND EXISTS (SELECT 1 FROM films WHERE id = ?) AND EXISTS (SELECT 1 FROM users WHERE id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    @Override
+    public Film getFilm(Long id) {
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS + "WHERE id = ?", FILM_MAPPER, id);
+        if (films.isEmpty()) return null;
+        Film film = films.get(0);
+        jdbcTemplate.queryForList("SELECT user_id FROM film_likes WHERE film_id = ?", Long.class, id)
+                .forEach(film.getLikes()::add);
+        return film;
+    }
+
+    @Override
+    public Collection<Film> getFilms() {
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS + "ORDER BY id", FILM_MAPPER);
+        Map<Long, Film> byId = films.stream().collect(Collectors.toMap(Film::getId, Function.identity()));
+        jdbcTemplate.query("SELECT film_id, user_id FROM film_likes", rs -> {
+            Film film = byId.get(rs.getLong("film_id"));
+            if (film != null) film.getLikes().add(rs.getLong("user_id"));
+        });
+        return films;
+    }
+
+    @Override
+    public List<Film> getFilms(long after, int limit) {
+        return withLikes(jdbcTemplate.query(SELECT_FILMS + "WHERE id > ? ORDER BY id LIMIT ?", FILM_MAPPER,
+                after, limit));
+    }
+
+    //диапазоны дат и длительности читаются по films_release_idx и films_duration_idx
+    @Override
+    public List<Film> getFilms(FilmFilter filter, long after, int limit) {
+        StringBuilder where = new StringBuilder("WHERE TRUE ");
+        List<Object> args = new ArrayList<>();
+        if (filter.getReleasedFrom() != null) {
+            where.append("AND release_date >= ? ");
+            args.add(Date.valueOf(filter.getReleasedFrom()));
+        }
+        if (filter.getReleasedTo() != null) {
+            where.append("AND release_date <= ? ");
+            args.add(Date.valueOf(filter.getReleasedTo()));
+        }
+        if (filter.getMinDuration() != null) {
+            where.append("AND duration >= ? ");
+            args.add(filter.getMinDuration());
+        }
+        if (filter.getMaxDuration() != null) {
+            where.append("AND duration <= ? ");
+            args.add(filter.getMaxDuration());
+        }
+        if (!filter.isPopular()) {
+            where.append("AND id > ? ");
+            args.add(after);
+        }
+        args.add(limit);
+        String order = filter.isPopular() ? "ORDER BY likes_count DESC, id LIMIT ?" : "ORDER BY id LIMIT ?";
+        return withLikes(jdbcTemplate.query(SELECT_FILMS + where + order, FILM_MAPPER, args.toArray()));
+    }
+
+    @Override
+    public FilmFacets getFacets() {
+        FilmFacets facets = new FilmFacets();
+        jdbcTemplate.query("SELECT EXTRACT(YEAR FROM release_date) AS release_year, COUNT(*) AS films FROM films "
+                + "WHERE release_date IS NOT NULL GROUP BY release_year", rs -> {
+            facets.addYear(rs.getInt("release_year"), rs.getLong("films"));
+        });
+        jdbcTemplate.query("SELECT LEAST(duration / ?, ?) AS bucket, COUNT(*) AS films FROM films "
+                + "WHERE duration IS NOT NULL GROUP BY bucket", rs -> {
+            facets.addDuration(rs.getInt("bucket"), rs.getLong("films"));
+        }, FilmFacets.BUCKET_MINUTES, FilmFacets.DURATION_BUCKETS - 1);
+        return facets;
+    }
+
+    @Override
+    public Collection<Film> getPopularFilms(long count) {
+        return withLikes(jdbcTemplate.query(SELECT_FILMS + "ORDER BY likes_count DESC, id LIMIT ?", FILM_MAPPER,
+                count));
+    }
+
+    @Override
+    public long[] getLikes(long filmId, long after, int limit) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM film_likes WHERE film_id = ? AND user_id > ? "
+                + "ORDER BY user_id LIMIT ?", Long.class, filmId, after, limit).stream()
+                .mapToLong(Long::longValue).toArray();
+    }
+
+    //та же оценка, что в памяти, в шкале now: лайк весит exp(-(now - liked_at) / window).
+    //Лайки старше десяти окон весят меньше e^-10 и не читаются
+    @Override
+    public List<Film> getTrendingFilms(Duration window, int count) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT film_id FROM film_likes WHERE liked_at >= ? "
+                        + "GROUP BY film_id ORDER BY SUM(EXP(DATEDIFF('SECOND', CAST(? AS TIMESTAMP WITH TIME ZONE), "
+                        + "liked_at) / CAST(? AS DOUBLE PRECISION))) DESC, film_id LIMIT ?",
+                Long.class, now.minus(window.multipliedBy(10)), now, window.toSeconds(), count);
+        return byIds(ids);
+    }
+
+    //та же схема, что в памяти: общие лайки по film_likes_user_idx, мера Жаккара, 50 ближайших соседей.
+    //Параметры внутри WITH H2 связывает неверно, поэтому запрос собран из подзапросов
+    @Override
+    public List<Film> getRecommendations(long userId, int limit) {
+        long liked = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes WHERE user_id = ?", Long.class,
+                userId);
+        if (liked == 0) return List.of();
+        List<Long> ids = jdbcTemplate.queryForList("SELECT l.film_id FROM film_likes l JOIN ("
+                        + "SELECT o.user_id, CAST(o.common AS DOUBLE) / (? + o.total - o.common) AS similarity FROM ("
+                        + "SELECT c.user_id, COUNT(*) AS common, "
+                        + "(SELECT COUNT(*) FROM film_likes t WHERE t.user_id = c.user_id) AS total "
+                        + "FROM film_likes c JOIN film_likes m ON m.film_id = c.film_id AND m.user_id = ? "
+                        + "WHERE c.user_id <> ? GROUP BY c.user_id) o "
+                        + "WHERE o.total > o.common ORDER BY similarity DESC LIMIT 50) n ON n.user_id = l.user_id "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM film_likes m WHERE m.user_id = ? AND m.film_id = l.film_id) "
+                        + "GROUP BY l.film_id ORDER BY SUM(n.similarity) DESC, l.film_id LIMIT ?",
+                Long.class, liked, userId, userId, userId, limit);
+        return byIds(ids);
+    }
+
+    //без полнотекстового индекса: каждое слово ищется подстрокой, выдача по числу лайков
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        List<String> tokens = FilmSearchIndex.tokenize(query);
+        if (tokens.isEmpty()) return List.of();
+        StringBuilder where = new StringBuilder("WHERE TRUE ");
+        List<Object> args = new ArrayList<>();
+        for (String token : tokens) {
+            where.append("AND (REPLACE(LOWER(name), 'ё', 'е') LIKE ? OR REPLACE(LOWER(description), 'ё', 'е') LIKE ?) ");
+            args.add("%" + token + "%");
+            args.add("%" + token + "%");
+        }
+        args.add(limit);
+        return withLikes(jdbcTemplate.query(SELECT_FILMS + where + "ORDER BY likes_count DESC, id LIMIT ?",
+                FILM_MAPPER, args.toArray()));
+    }
+
+    @Override
+    public long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Long.class);
+    }
+
+    @Override
+    public long countLikes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes", Long.class);
+    }
+
+    @Override
+    public long nextId() {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE, Long.class);
+    }
+
+    @Override
+    @Transactional
+    public Film addFilm(Film film) {
+        jdbcTemplate.update("INSERT INTO films (id, name, description, release_date, duration, likes_count) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDurationMinutes(), 0);
+        insertLikes(List.of(film));
+        DbSequences.advancePast(jdbcTemplate, SEQUENCE, film.getId());
+        return film;
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        return jdbcTemplate.queryForList("SELECT NEXT VALUE FOR " + SEQUENCE + " FROM SYSTEM_RANGE(1, ?)", Long.class,
+                count).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    @Transactional
+    public void addFilms(List<Film> films) {
+        jdbcTemplate.batchUpdate("INSERT INTO films (id, name, description, release_date, duration, likes_count) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                films.stream().map(film -> new Object[]{film.getId(), film.getName(), film.getDescription(),
+                        film.getReleaseDate(), film.getDurationMinutes(), 0}).toList());
+        insertLikes(films);
+        films.stream().mapToLong(Film::getId).max()
+                .ifPresent(maxId -> DbSequences.advancePast(jdbcTemplate, SEQUENCE, maxId));
+    }
+
+    @Override
+    @Transactional
+    public Film updateFilm(Film film) {
+        jdbcTemplate.update("UPDATE films SET name = ?, description = ?, release_date = ?, duration = ? "
+                        + "WHERE id = ?",
+                film.getName(), film.getDescription(), film.getReleaseDate(), film.getDurationMinutes(),
+                film.getId());
+        //оставшиеся лайки сохраняют время постановки, новые получают неизвестное
+        long[] userIds = film.getLikes().toLongArray();
+        if (userIds.length == 0) {
+            jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ?", film.getId());
+        } else {
+            namedJdbcTemplate.update("DELETE FROM film_likes WHERE film_id = :id AND user_id NOT IN (:users)",
+                    Map.of("id", film.getId(), "users", Arrays.stream(userIds).boxed().toList()));
+            jdbcTemplate.batchUpdate(INSERT_LIKE, Arrays.stream(userIds)
+                    .mapToObj(userId -> likeArgs(film.getId(), userId, null)).toList());
+        }
+        //лайки неизвестных пользователей пропущены, поэтому счётчик берётся из film_likes, а не из тела запроса
+        recountLikes(Set.of(film.getId()));
+        return film;
+    }
+
+    @Override
+    public void removeFilm(Long id) {
+        jdbcTemplate.update("DELETE FROM films WHERE id = ?", id);
+    }
+
+    @Override
+    @Transactional
+    public void addLike(Long filmId, Long userId) {
+        addLike(filmId, userId, Instant.now());
+    }
+
+    @Override
+    @Transactional
+    public void addLike(Long filmId, Long userId, Instant likedAt) {
+        try {
+            int inserted = jdbcTemplate.update(INSERT_LIKE, likeArgs(filmId, userId, likedAt));
+            if (inserted > 0) jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?",
+                    filmId);
+        } catch (DuplicateKeyException e) {
+            //лайк уже поставлен параллельным запросом
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addLikes(List<Like> likes) {
+        //уже поставленные лайки не трогаются и сохраняют прежнее время
+        Instant now = Instant.now();
+        jdbcTemplate.batchUpdate(INSERT_LIKE,
+                likes.stream().map(like -> likeArgs(like.getFilmId(), like.getUserId(), now)).toList());
+        //счётчики пересчитываются один раз на фильм, а не на каждый лайк
+        recountLikes(likes.stream().map(Like::getFilmId).collect(Collectors.toSet()));
+    }
+
+    @Override
+    @Transactional
+    public void removeLike(Long filmId, Long userId) {
+        int deleted = jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", filmId, userId);
+        if (deleted > 0) recountLikes(Set.of(filmId));
+    }
+
+    @Override
+    @Transactional
+    public void removeLikes(List<Like> likes) {
+        jdbcTemplate.batchUpdate("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?",
+                likes.stream().map(like -> new Object[]{like.getFilmId(), like.getUserId()}).toList());
+        recountLikes(likes.stream().map(Like::getFilmId).collect(Collectors.toSet()));
+    }
+
+    @Override
+    @Transactional
+    public long[] removeUserLikes(long userId) {
+        //лайки пользователя находятся по индексу film_likes_user_idx
+        long[] filmIds = jdbcTemplate.queryForList("SELECT film_id FROM film_likes WHERE user_id = ?", Long.class,
+                userId).stream().mapToLong(Long::longValue).toArray();
+        if (filmIds.length == 0) return filmIds;
+        jdbcTemplate.update("DELETE FROM film_likes WHERE user_id = ?", userId);
+        recountLikes(Arrays.stream(filmIds).boxed().collect(Collectors.toSet()));
+        return filmIds;
+    }
+
+    /**
+     * Пересчёт счётчиков лайков по film_likes. Все изменения лайков сначала пишут film_likes и только потом
+     * films, поэтому параллельные транзакции берут блокировки строк в одном порядке и не блокируют друг друга
+     * насмерть.
+     */
+    private void recountLikes(Set<Long> filmIds) {
+        if (filmIds.isEmpty()) return;
+        namedJdbcTemplate.update("UPDATE films SET likes_count = (SELECT COUNT(*) FROM film_likes "
+                + "WHERE film_likes.film_id = films.id) WHERE id IN (:ids)", Map.of("ids", filmIds));
+    }
+
+    @Override
+    public long[] getLikers() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT user_id FROM film_likes", Long.class).stream()
+                .mapToLong(Long::longValue).toArray();
+    }
+
+    private static Object[] likeArgs(long filmId, long userId, Instant likedAt) {
+        return new Object[]{filmId, userId, likedAt == null ? null : likedAt.atOffset(ZoneOffset.UTC), filmId, userId,
+                filmId, userId};
+    }
+
+    //лайки из тела новых фильмов: лайки неизвестных пользователей пропускаются, как в addLike
+    private void insertLikes(List<Film> films) {
+        List<Object[]> likes = new ArrayList<>();
+        for (Film film : films) {
+            for (long userId : film.getLikes().toLongArray()) {
+                likes.add(likeArgs(film.getId(), userId, null));
+            }
+        }
+        if (likes.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_LIKE, likes);
+        recountLikes(films.stream().filter(film -> !film.getLikes().isEmpty()).map(Film::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    //фильмы в порядке ids
+    private List<Film> byIds(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Film> byId = withLikes(namedJdbcTemplate.query(SELECT_FILMS + "WHERE id IN (:ids)",
+                Map.of("ids", ids), FILM_MAPPER)).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return ids.stream().map(byId::get).toList();
+    }
+
+    //подгружает лайки страницы фильмов одним запросом
+    private List<Film> withLikes(List<Film> films) {
+        if (films.isEmpty()) return films;
+        Map<Long, Film> byId = films.stream().collect(Collectors.toMap(Film::getId, Function.identity()));
+        namedJdbcTemplate.query("SELECT film_id, user_id FROM film_likes WHERE film_id IN (:ids)",
+                Map.of("ids", byId.keySet()),
+                rs -> {
+                    byId.get(rs.getLong("film_id")).getLikes().add(rs.getLong("user_id"));
+                });
+        return films;
+    }
+}
@@ -0,0 +1,213 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongCounter;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Инвертированный индекс по названию и описанию фильмов.
+ * Словарь отсортирован, поэтому последнее слово запроса ищется как префикс (автодополнение) обходом диапазона.
+ * Запись в списке фильма по терму - id * 4 + поля, где встретился терм (1 - описание, 2 - название),
+ * так что списки хранятся в LongHashSet без упаковки.
+ * Работа запроса ограничена: префикс раскрывается не более чем в MAX_PREFIX_TERMS термов, а оценивается
+ * не более MAX_CANDIDATES фильмов из самого короткого списка, поэтому задержка не растёт вместе с каталогом.
+ */
+public class FilmSearchIndex {
+    private static final int DESCRIPTION = 1;
+    private static final int NAME = 2;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int MAX_CANDIDATES = 10_000;
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+            .thenComparing(Comparator.comparingLong(Scored::filmId).reversed());
+
+    //опустевшие термы не удаляются: атомарно удалить ключ из skip-list нельзя, а пустой список безвреден
+    private final NavigableMap<String, LongHashSet> terms = new ConcurrentSkipListMap<>();
+    //фильмы по id: хэш-таблица вместо сортированного хранилища, чтобы проверка кандидата не зависела от размера каталога
+    private final Map<Long, Film> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Слова текста в нижнем регистре: последовательности букв (латиница, кириллица) и цифр, ё приводится к е.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(normalize(c));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    //вызывается под блокировкой фильма: previous - прежняя версия или null, current - новая или null
+    public void update(Film previous, Film current) {
+        Map<String, Integer> before = fields(previous);
+        Map<String, Integer> after = fields(current);
+        before.forEach((term, fields) -> {
+            if (!fields.equals(after.get(term))) terms.get(term).remove(posting(previous.getId(), fields));
+        });
+        after.forEach((term, fields) -> {
+            if (!fields.equals(before.get(term))) {
+                terms.computeIfAbsent(term, t -> new LongHashSet()).add(posting(current.getId(), fields));
+            }
+        });
+        if (current != null) {
+            documents.put(current.getId(), current);
+        } else if (previous != null) {
+            documents.remove(previous.getId());
+        }
+    }
+
+    /**
+     * Фильмы, содержащие все слова запроса; последнее слово может быть началом слова.
+     * Релевантность - сумма по словам запроса веса поля (название 2, описание 1) на IDF терма,
+     * лайки дают логарифмический множитель: 0 лайков - ×1, около 50 - ×2.
+     */
+    public List<Film> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) return List.of();
+        double total = Math.max(documents.size(), 1);
+
+        //полные слова: у каждого свой список, отсутствие любого даёт пустой результат
+        List<Term> exact = new ArrayList<>();
+        for (String token : tokens.subList(0, tokens.size() - 1)) {
+            LongHashSet postings = terms.get(token);
+            if (postings == null || postings.isEmpty()) return List.of();
+            exact.add(new Term(postings, idf(total, postings.size())));
+        }
+        //префикс раскрывается в первые MAX_PREFIX_TERMS непустых термов с этим началом
+        String prefix = tokens.get(tokens.size() - 1);
+        List<Term> expansions = new ArrayList<>();
+        long prefixed = 0;
+        for (LongHashSet postings : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            int size = postings.size();
+            if (size == 0) continue;
+            if (expansions.size() == MAX_PREFIX_TERMS) break;
+            expansions.add(new Term(postings, idf(total, size)));
+            prefixed += size;
+        }
+        if (expansions.isEmpty()) return List.of();
+
+        PriorityQueue<Scored> best = new PriorityQueue<>(WORST_FIRST);
+        Term driver = exact.stream().min(Comparator.comparingInt(term -> term.postings().size())).orElse(null);
+        if (driver != null && driver.postings().size() <= prefixed) {
+            //кандидаты из самого короткого списка полных слов, префикс проверяется по тексту фильма без разбора на слова
+            double prefixIdf = idf(total, (int) Math.min(prefixed, Integer.MAX_VALUE));
+            for (long posting : driver.postings().toLongArray(MAX_CANDIDATES)) {
+                Film film = documents.get(posting >>> 2);
+                if (film == null) continue;
+                int fields = (startsWord(film.getName(), prefix) ? NAME : 0)
+                        | (startsWord(film.getDescription(), prefix) ? DESCRIPTION : 0);
+                if (fields != 0) score(film, weight(fields) * prefixIdf, exact, limit, best);
+            }
+        } else {
+            //кандидаты из списков префикса, начиная с редких термов: у фильма из нескольких списков
+            //учитывается первый, то есть терм с наибольшим IDF; всего не больше MAX_CANDIDATES фильмов
+            expansions.sort(Comparator.comparingDouble(Term::idf).reversed());
+            LongCounter seen = new LongCounter((int) Math.min(prefixed, MAX_CANDIDATES));
+            for (Term expansion : expansions) {
+                if (seen.size() >= MAX_CANDIDATES) break;
+                for (long posting : expansion.postings().toLongArray(MAX_CANDIDATES - seen.size())) {
+                    if (seen.get(posting >>> 2) > 0) continue;
+                    seen.add(posting >>> 2, 1);
+                    Film film = documents.get(posting >>> 2);
+                    if (film != null) score(film, weight(posting) * expansion.idf(), exact, limit, best);
+                }
+            }
+        }
+        return best.stream()
+                .sorted(WORST_FIRST.reversed())
+                .map(Scored::film)
+                .toList();
+    }
+
+    //есть ли в тексте слово, начинающееся с prefix
+    private static boolean startsWord(String text, String prefix) {
+        if (text == null) return false;
+        for (int i = 0; i + prefix.length() <= text.length(); i++) {
+            if (i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) continue;
+            int j = 0;
+            while (j < prefix.length() && normalize(text.charAt(i + j)) == prefix.charAt(j)) {
+                j++;
+            }
+            if (j == prefix.length()) return true;
+        }
+        return false;
+    }
+
+    private static void score(Film film, double relevance, List<Term> exact, int limit, PriorityQueue<Scored> best) {
+        for (Term term : exact) {
+            int fields = term.fields(film.getId());
+            if (fields == 0) return;
+            relevance += weight(fields) * term.idf();
+        }
+        Scored scored = new Scored(film, relevance * (1 + Math.log(1 + film.getLikes().size()) / 4));
+        if (best.size() < limit) {
+            best.add(scored);
+        } else if (WORST_FIRST.compare(scored, best.peek()) > 0) {
+            best.poll();
+            best.add(scored);
+        }
+    }
+
+    private static Map<String, Integer> fields(Film film) {
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        if (film == null) return fields;
+        for (String token : tokenize(film.getName())) {
+            fields.merge(token, NAME, (a, b) -> a | b);
+        }
+        for (String token : tokenize(film.getDescription())) {
+            fields.merge(token, DESCRIPTION, (a, b) -> a | b);
+        }
+        return fields;
+    }
+
+    private static char normalize(char c) {
+        return c == 'ё' || c == 'Ё' ? 'е' : Character.toLowerCase(c);
+    }
+
+    private static long posting(long filmId, int fields) {
+        return filmId << 2 | fields;
+    }
+
+    private static int weight(long fields) {
+        return (int) (fields & NAME) + (int) (fields & DESCRIPTION);
+    }
+
+    private static double idf(double total, int frequency) {
+        return Math.log(1 + total / frequency);
+    }
+
+    private record Term(LongHashSet postings, double idf) {
+
+        //поля, где терм встретился у фильма; 0 - не встретился
+        int fields(long filmId) {
+            for (int fields = NAME | DESCRIPTION; fields > 0; fields--) {
+                if (postings.contains(posting(filmId, fields))) return fields;
+            }
+            return 0;
+        }
+    }
+
+    private record Scored(Film film, double score) {
+
+        long filmId() {
+            return film.getId();
+        }
+    }
+}
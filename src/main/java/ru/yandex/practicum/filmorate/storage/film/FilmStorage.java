@@ -1,18 +1,96 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface FilmStorage {
+    //окна трендов: в памяти на каждое ведётся своя оценка и свой рейтинг
+    List<Duration> TRENDING_WINDOWS = List.of(Duration.ofDays(1), Duration.ofDays(7), Duration.ofDays(30));
 
     Film getFilm(Long id);
 
     Collection<Film> getFilms();
 
+    //страница по возрастанию id, начиная с первого id больше after
+    List<Film> getFilms(long after, int limit);
+
+    //отобранные фильтром: по возрастанию id начиная с первого id больше after или по популярности
+    List<Film> getFilms(FilmFilter filter, long after, int limit);
+
+    //число фильмов по годам выхода и по корзинам длительности
+    FilmFacets getFacets();
+
+    Collection<Film> getPopularFilms(long count);
+
+    //страница лайкнувших фильм: id пользователей по возрастанию, начиная с первого id больше after
+    long[] getLikes(long filmId, long after, int limit);
+
+    //фильмы с наибольшей суммой лайков, затухающих экспоненциально с постоянной времени window
+    List<Film> getTrendingFilms(Duration window, int count);
+
+    //фильмы, которые лайкали пользователи с похожими лайками, а этот пользователь - нет
+    List<Film> getRecommendations(long userId, int limit);
+
+    //полнотекстовый поиск по названию и описанию, последнее слово запроса - префикс
+    List<Film> searchFilms(String query, int limit);
+
+    //размеры для метрик: число фильмов и число лайков
+    long count();
+
+    long countLikes();
+
+    long nextId();
+
+    //идентификаторы для пакетной вставки одним обращением
+    long[] nextIds(int count);
+
     Film addFilm(Film film);
 
+    void addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     void removeFilm(Long id);
+
+    void addLike(Long filmId, Long userId);
+
+    //лайк с известным временем постановки; null - время неизвестно, в тренды лайк не попадает
+    void addLike(Long filmId, Long userId, Instant likedAt);
+
+    void addLikes(List<Like> likes);
+
+    void removeLike(Long filmId, Long userId);
+
+    void removeLikes(List<Like> likes);
+
+    //каскад удаления пользователя: снимает все его лайки, возвращает id фильмов, которые их лишились
+    long[] removeUserLikes(long userId);
+
+    //пользователи, у которых есть хотя бы один лайк, - для сверки с хранилищем пользователей
+    long[] getLikers();
+
+    //оценки трендов для снимка: логарифмы сумм по окнам TRENDING_WINDOWS; хранилище в базе считает их запросом
+    default Map<Long, TrendingIndex.Score> getTrendScores() {
+        return Map.of();
+    }
+
+    default void restoreTrendScores(long filmId, TrendingIndex.Score score) {
+    }
+
+    //последний выданный id для снимка: иначе после перезапуска повторились бы id удалённых фильмов
+    default long lastId() {
+        return 0;
+    }
+
+    //последовательность только растёт: id меньше уже выданных не возвращает её назад
+    default void restoreLastId(long id) {
+    }
 }
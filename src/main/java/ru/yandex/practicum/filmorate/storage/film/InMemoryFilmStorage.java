@@ -1,15 +1,89 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.StripedLocks;
+import ru.yandex.practicum.filmorate.util.LongCounter;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
+    //сколько самых похожих пользователей участвуют в рекомендации
+    private static final int NEIGHBOURS = 50;
+    //у очень популярного фильма просматривается выборка лайкнувших, а не все
+    private static final int MAX_LIKERS_PER_FILM = 1_000;
+    //с какого числа лайков пользователя пересечения считаются параллельно
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    //упорядочено по id: это и есть индекс для постраничной выдачи
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    //индекс популярности: фильмы по убыванию лайков, при равенстве - по возрастанию id
+    private final NavigableMap<PopularityKey, Film> popularity = new ConcurrentSkipListMap<>();
+    //обратный индекс лайков: пользователь -> понравившиеся фильмы
+    private final ConcurrentMap<Long, LongHashSet> likedFilms = new ConcurrentHashMap<>();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final TrendingIndex trending = new TrendingIndex(TRENDING_WINDOWS);
+    //вторичные индексы для отбора по диапазонам: (дата выхода, id) и (длительность в минутах, id)
+    private final NavigableMap<RangeKey, Film> byRelease = new ConcurrentSkipListMap<>();
+    private final NavigableMap<RangeKey, Film> byDuration = new ConcurrentSkipListMap<>();
+    //фасеты меняются вместе с индексами и служат оценкой размера диапазона при выборе плана
+    private final NavigableMap<Integer, AtomicLong> yearCounts = new ConcurrentSkipListMap<>();
+    private final AtomicLongArray durationCounts = new AtomicLongArray(FilmFacets.DURATION_BUCKETS);
+    private final StripedLocks locks = new StripedLocks(64);
+    private final AtomicLong sequence = new AtomicLong();
+    //размер skip-list считается обходом, поэтому счётчики для метрик ведутся отдельно
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong likes = new AtomicLong();
+    private final StorageJournal journal;
+
+    public InMemoryFilmStorage() {
+        this(StorageJournal.NONE);
+    }
+
+    public InMemoryFilmStorage(StorageJournal journal) {
+        this.journal = journal;
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(ObjectProvider<StorageJournal> journal) {
+        this(journal.getIfAvailable(() -> StorageJournal.NONE));
+    }
 
     @Override
     public Film getFilm(Long id) {
@@ -18,23 +92,517 @@ public class InMemoryFilmStorage implements FilmStorage {
 
     @Override
     public Collection<Film> getFilms() {
-        return films.values();
+        return List.copyOf(films.values());
+    }
+
+    @Override
+    public List<Film> getFilms(long after, int limit) {
+        List<Film> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<Film> iterator = films.tailMap(after, false).values().iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    /**
+     * План выбирается по оценке числа подходящих фильмов из фасетов. Если подходящих много, дешевле идти
+     * в порядке выдачи (по id или по популярности) и проверять фильтр: до limit совпадений ожидается около
+     * limit * всего / подходящих шагов. Если мало - обходится диапазон более узкого индекса, а совпадения сортируются.
+     */
+    @Override
+    public List<Film> getFilms(FilmFilter filter, long after, int limit) {
+        long total = Math.max(count.get(), 1);
+        long releaseEstimate = filter.hasReleaseRange() ? estimateRelease(filter) : total;
+        long durationEstimate = filter.hasDurationRange() ? estimateDuration(filter) : total;
+        long estimate = Math.min(releaseEstimate, durationEstimate);
+        if (estimate == 0) return List.of();
+        //во время переиндексации фильм ненадолго присутствует в индексе под двумя ключами
+        LongHashSet seen = new LongHashSet();
+        if ((double) limit * total / estimate <= estimate) {
+            List<Film> page = new ArrayList<>(Math.min(limit, 1024));
+            Iterator<Film> ordered = filter.isPopular()
+                    ? popularity.values().iterator()
+                    : films.tailMap(after, false).values().iterator();
+            while (page.size() < limit && ordered.hasNext()) {
+                Film film = ordered.next();
+                if (filter.matches(film) && seen.add(film.getId())) page.add(film);
+            }
+            return page;
+        }
+        Collection<Film> range;
+        if (filter.hasReleaseRange() && releaseEstimate <= durationEstimate) {
+            Long from = filter.getReleasedFrom() == null ? null : filter.getReleasedFrom().toEpochDay();
+            Long to = filter.getReleasedTo() == null ? null : filter.getReleasedTo().toEpochDay();
+            range = byRelease.subMap(RangeKey.from(from), true, RangeKey.to(to), true).values();
+        } else if (filter.hasDurationRange()) {
+            range = byDuration.subMap(RangeKey.from(filter.getMinDuration()), true,
+                    RangeKey.to(filter.getMaxDuration()), true).values();
+        } else {
+            range = films.values();
+        }
+        Stream<Film> matches = range.stream()
+                .filter(film -> (filter.isPopular() || film.getId() > after) && filter.matches(film))
+                .filter(film -> seen.add(film.getId()));
+        if (!filter.isPopular()) return matches.sorted(Comparator.comparingLong(Film::getId)).limit(limit).toList();
+        //ключ популярности снимается один раз: лайки могут меняться во время сортировки
+        return matches.map(film -> Map.entry(PopularityKey.of(film), film))
+                .sorted(Map.Entry.comparingByKey())
+                .limit(limit)
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    @Override
+    public FilmFacets getFacets() {
+        FilmFacets facets = new FilmFacets();
+        yearCounts.forEach((year, films) -> facets.addYear(year, films.get()));
+        for (int bucket = 0; bucket < durationCounts.length(); bucket++) {
+            facets.addDuration(bucket, durationCounts.get(bucket));
+        }
+        return facets;
+    }
+
+    @Override
+    public Collection<Film> getPopularFilms(long count) {
+        //ёмкость по счётчику фильмов: size() skip-list обходит его целиком
+        List<Film> result = new ArrayList<>((int) Math.min(count, this.count.get()));
+        //во время переиндексации фильм ненадолго присутствует под двумя ключами
+        Set<Long> seen = new HashSet<>();
+        Iterator<Film> iterator = popularity.values().iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            Film film = iterator.next();
+            if (seen.add(film.getId())) result.add(film);
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getLikes(long filmId, long after, int limit) {
+        Film film = films.get(filmId);
+        return film == null ? new long[0] : film.getLikes().toLongArray(after, limit);
+    }
+
+    /**
+     * Коллаборативная фильтрация по соседям: по обратному индексу находятся все, кто лайкал хотя бы один
+     * из фильмов пользователя, для них считается мера Жаккара |A∩B| / |A∪B|, и из NEIGHBOURS самых похожих
+     * собираются фильмы, которых у пользователя нет, с весом по сумме сходства.
+     * Стоимость - сумма числа лайков у фильмов пользователя, а не пользователи × фильмы.
+     */
+    @Override
+    public List<Film> getRecommendations(long userId, int limit) {
+        LongHashSet mine = likedFilms.get(userId);
+        if (mine == null) return List.of();
+        long[] liked = mine.toLongArray();
+        //число общих лайков с каждым пересекающимся пользователем
+        LongCounter overlaps = LongCounter.countNeighbours(liked, filmId -> {
+            Film film = films.get(filmId);
+            return film == null ? null : film.getLikes();
+        }, MAX_LIKERS_PER_FILM, other -> other != userId, PARALLEL_THRESHOLD);
+
+        //кандидаты по убыванию числа общих лайков: сходство не больше common / |A|, поэтому обход
+        //останавливается, как только эта граница не превосходит худшего из уже найденных соседей
+        long[][] byCommon = byCommon(overlaps, liked.length);
+        PriorityQueue<Neighbour> nearest = new PriorityQueue<>(Comparator.comparingDouble(Neighbour::similarity));
+        for (int common = byCommon.length - 1; common > 0; common--) {
+            if (nearest.size() == NEIGHBOURS && (double) common / liked.length <= nearest.peek().similarity()) break;
+            for (long other : byCommon[common]) {
+                LongHashSet theirs = likedFilms.get(other);
+                //пользователю, у которого нет ничего сверх общих фильмов, нечего предложить
+                if (theirs == null || theirs.size() <= common) continue;
+                double similarity = (double) common / (liked.length + theirs.size() - common);
+                if (nearest.size() < NEIGHBOURS) {
+                    nearest.add(new Neighbour(theirs, similarity));
+                } else if (similarity > nearest.peek().similarity()) {
+                    nearest.poll();
+                    nearest.add(new Neighbour(theirs, similarity));
+                }
+            }
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Neighbour neighbour : nearest) {
+            for (long filmId : neighbour.films().toLongArray()) {
+                if (!mine.contains(filmId)) scores.merge(filmId, neighbour.similarity(), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> films.get(entry.getKey()))
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getTrendingFilms(Duration window, int count) {
+        return Arrays.stream(trending.top(window, count))
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    @Override
+    public long count() {
+        return count.get();
+    }
+
+    @Override
+    public long countLikes() {
+        return likes.get();
+    }
+
+    @Override
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long first = sequence.getAndAdd(count) + 1;
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    @Override
+    public long lastId() {
+        return sequence.get();
+    }
+
+    @Override
+    public void restoreLastId(long id) {
+        sequence.accumulateAndGet(id, Math::max);
     }
 
     @Override
     public Film addFilm(Film film) {
-        films.put(film.getId(), film);
+        saveFilm(film).join();
         return film;
     }
 
+    @Override
+    public void addFilms(List<Film> batch) {
+        //записи пакета фиксируются в журнале одной группой: ждём их после применения всего пакета
+        List<CompletableFuture<Void>> logged = new ArrayList<>(batch.size());
+        for (Film film : batch) {
+            logged.add(saveFilm(film));
+        }
+        CompletableFuture.allOf(logged.toArray(CompletableFuture[]::new)).join();
+    }
+
     @Override
     public Film updateFilm(Film film) {
-        films.put(film.getId(), film);
-        return film;
+        return addFilm(film);
     }
 
     @Override
     public void removeFilm(Long id) {
-        films.remove(id);
+        CompletableFuture<Void> logged = StorageJournal.DONE;
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            Film film = films.remove(id);
+            if (film != null) {
+                popularity.remove(PopularityKey.of(film));
+                count.decrementAndGet();
+                likes.addAndGet(-film.getLikes().size());
+                for (long userId : film.getLikes().toLongArray()) {
+                    indexLike(userId, id, false);
+                }
+                searchIndex.update(film, null);
+                indexRanges(film, null);
+                trending.removed(id);
+                logged = journal.filmRemoved(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        logged.join();
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        addLike(filmId, userId, Instant.now());
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId, Instant likedAt) {
+        changeLike(filmId, userId, true, likedAt).join();
+    }
+
+    @Override
+    public void addLikes(List<Like> likes) {
+        changeLikes(likes, true, Instant.now());
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        changeLike(filmId, userId, false, null).join();
+    }
+
+    @Override
+    public void removeLikes(List<Like> likes) {
+        changeLikes(likes, false, null);
+    }
+
+    /**
+     * Лайки пользователя находятся по обратному индексу likedFilms, поэтому каскад стоит O(числа его лайков),
+     * а не обход всех фильмов. Каждый лайк снимается как обычный: с индексом популярности, трендами и журналом.
+     */
+    @Override
+    public long[] removeUserLikes(long userId) {
+        LongHashSet liked = likedFilms.get(userId);
+        if (liked == null) return new long[0];
+        long[] filmIds = liked.toLongArray();
+        List<Long> user = List.of(userId);
+        List<CompletableFuture<Void>> logged = new ArrayList<>(filmIds.length);
+        for (long filmId : filmIds) {
+            changeLikes(filmId, user, false, null, logged);
+        }
+        CompletableFuture.allOf(logged.toArray(CompletableFuture[]::new)).join();
+        return filmIds;
+    }
+
+    @Override
+    public long[] getLikers() {
+        return likedFilms.keySet().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public Map<Long, TrendingIndex.Score> getTrendScores() {
+        return trending.scores();
+    }
+
+    @Override
+    public void restoreTrendScores(long filmId, TrendingIndex.Score score) {
+        Lock lock = locks.get(filmId);
+        lock.lock();
+        try {
+            if (films.containsKey(filmId)) trending.restore(filmId, score);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> saveFilm(Film film) {
+        //сущность могла прийти с заранее выданным id - последовательность не должна его повторить
+        sequence.accumulateAndGet(film.getId(), Math::max);
+        Lock lock = locks.get(film.getId());
+        lock.lock();
+        try {
+            PopularityKey key = PopularityKey.of(film);
+            popularity.put(key, film);
+            Film previous = films.put(film.getId(), film);
+            if (previous != null) {
+                PopularityKey previousKey = PopularityKey.of(previous);
+                if (!previousKey.equals(key)) popularity.remove(previousKey);
+            } else {
+                count.incrementAndGet();
+            }
+            likes.addAndGet(film.getLikes().size() - (previous == null ? 0 : previous.getLikes().size()));
+            reindexLikes(film.getId(), previous == null ? new LongHashSet() : previous.getLikes(), film.getLikes());
+            searchIndex.update(previous, film);
+            indexRanges(previous, film);
+            return journal.filmSaved(film);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //лайки пакета группируются по фильму: блокировка и индекс популярности - один раз на фильм
+    private void changeLikes(List<Like> changes, boolean like, Instant likedAt) {
+        Map<Long, List<Long>> byFilm = new LinkedHashMap<>();
+        for (Like change : changes) {
+            byFilm.computeIfAbsent(change.getFilmId(), filmId -> new ArrayList<>()).add(change.getUserId());
+        }
+        List<CompletableFuture<Void>> logged = new ArrayList<>(changes.size());
+        byFilm.forEach((filmId, userIds) -> changeLikes(filmId, userIds, like, likedAt, logged));
+        CompletableFuture.allOf(logged.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void changeLikes(long filmId, List<Long> userIds, boolean like, Instant likedAt,
+                             List<CompletableFuture<Void>> logged) {
+        Lock lock = locks.get(filmId);
+        lock.lock();
+        try {
+            Film film = films.get(filmId);
+            if (film == null) return;
+            PopularityKey previousKey = PopularityKey.of(film);
+            for (long userId : userIds) {
+                if (film.getLikes().contains(userId) == like) continue;
+                if (like) {
+                    film.getLikes().add(userId);
+                    if (likedAt != null) trending.liked(filmId, likedAt);
+                } else {
+                    trending.unliked(filmId);
+                    film.getLikes().remove(userId);
+                }
+                likes.addAndGet(like ? 1 : -1);
+                indexLike(userId, filmId, like);
+                logged.add(like ? journal.liked(filmId, userId, likedAt) : journal.unliked(filmId, userId));
+            }
+            PopularityKey key = PopularityKey.of(film);
+            if (key.equals(previousKey)) return;
+            //сначала новый ключ, потом удаление старого: читатель индекса не потеряет фильм
+            popularity.put(key, film);
+            popularity.remove(previousKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> changeLike(Long filmId, Long userId, boolean like, Instant likedAt) {
+        List<CompletableFuture<Void>> logged = new ArrayList<>(1);
+        changeLikes(filmId, List.of(userId), like, likedAt, logged);
+        return logged.isEmpty() ? StorageJournal.DONE : logged.get(0);
+    }
+
+    //оценка по годам: крайние годы диапазона берутся в доле покрытых дней
+    private long estimateRelease(FilmFilter filter) {
+        LocalDate from = filter.getReleasedFrom() == null ? LocalDate.MIN : filter.getReleasedFrom();
+        LocalDate to = filter.getReleasedTo() == null ? LocalDate.MAX : filter.getReleasedTo();
+        if (from.isAfter(to)) return 0;
+        double estimate = 0;
+        for (Map.Entry<Integer, AtomicLong> year
+                : yearCounts.subMap(from.getYear(), true, to.getYear(), true).entrySet()) {
+            LocalDate first = LocalDate.ofYearDay(year.getKey(), 1);
+            LocalDate last = first.plusYears(1).minusDays(1);
+            long covered = ChronoUnit.DAYS.between(from.isAfter(first) ? from : first,
+                    to.isBefore(last) ? to : last) + 1;
+            estimate += year.getValue().get() * (double) covered / first.lengthOfYear();
+        }
+        return (long) Math.ceil(estimate);
+    }
+
+    //оценка по корзинам: крайние корзины берутся в доле покрытых минут, последняя открыта сверху
+    private long estimateDuration(FilmFilter filter) {
+        long min = filter.getMinDuration() == null ? 0 : filter.getMinDuration();
+        long max = filter.getMaxDuration() == null ? Long.MAX_VALUE : filter.getMaxDuration();
+        if (min > max) return 0;
+        double estimate = 0;
+        for (int bucket = FilmFacets.bucket(min); bucket <= FilmFacets.bucket(max); bucket++) {
+            long first = (long) bucket * FilmFacets.BUCKET_MINUTES;
+            long last = first + FilmFacets.BUCKET_MINUTES - 1;
+            double covered = bucket == FilmFacets.DURATION_BUCKETS - 1
+                    ? 1 : (double) (Math.min(max, last) - Math.max(min, first) + 1) / FilmFacets.BUCKET_MINUTES;
+            estimate += durationCounts.get(bucket) * covered;
+        }
+        return (long) Math.ceil(estimate);
+    }
+
+    //вызывается под блокировкой фильма: previous - прежняя версия или null, current - новая или null
+    private void indexRanges(Film previous, Film current) {
+        RangeKey release = RangeKey.release(current);
+        RangeKey duration = RangeKey.duration(current);
+        //сначала новые ключи, потом удаление старых: читатель индекса не потеряет фильм
+        if (release != null) byRelease.put(release, current);
+        if (duration != null) byDuration.put(duration, current);
+        RangeKey previousRelease = RangeKey.release(previous);
+        RangeKey previousDuration = RangeKey.duration(previous);
+        if (previousRelease != null && !previousRelease.equals(release)) byRelease.remove(previousRelease);
+        if (previousDuration != null && !previousDuration.equals(duration)) byDuration.remove(previousDuration);
+        countFacets(previous, -1);
+        countFacets(current, 1);
+    }
+
+    private void countFacets(Film film, int delta) {
+        if (film == null) return;
+        if (film.getReleaseDate() != null) {
+            yearCounts.computeIfAbsent(film.getReleaseDate().getYear(), year -> new AtomicLong()).addAndGet(delta);
+        }
+        if (film.getDuration() != null) {
+            durationCounts.addAndGet(FilmFacets.bucket(film.getDuration().toMinutes()), delta);
+        }
+    }
+
+    //раскладка кандидатов по числу общих лайков: подсчёт размеров корзин, затем заполнение
+    private static long[][] byCommon(LongCounter overlaps, int maxCommon) {
+        int[] sizes = new int[maxCommon + 1];
+        overlaps.forEach((other, common) -> sizes[Math.min(common, maxCommon)]++);
+        long[][] buckets = new long[maxCommon + 1][];
+        for (int i = 0; i <= maxCommon; i++) {
+            buckets[i] = new long[sizes[i]];
+        }
+        int[] filled = new int[maxCommon + 1];
+        overlaps.forEach((other, common) -> {
+            int bucket = Math.min(common, maxCommon);
+            buckets[bucket][filled[bucket]++] = other;
+        });
+        return buckets;
+    }
+
+    //вызывается под блокировкой фильма, compute атомарен по пользователю
+    private void indexLike(long userId, long filmId, boolean like) {
+        likedFilms.compute(userId, (id, liked) -> {
+            if (like) {
+                if (liked == null) liked = new LongHashSet();
+                liked.add(filmId);
+            } else if (liked != null) {
+                liked.remove(filmId);
+            }
+            return liked == null || liked.isEmpty() ? null : liked;
+        });
+    }
+
+    private void reindexLikes(long filmId, LongHashSet previous, LongHashSet current) {
+        if (previous == current) return;
+        for (long userId : previous.toLongArray()) {
+            if (!current.contains(userId)) indexLike(userId, filmId, false);
+        }
+        for (long userId : current.toLongArray()) {
+            if (!previous.contains(userId)) indexLike(userId, filmId, true);
+        }
+    }
+
+    private record Neighbour(LongHashSet films, double similarity) {
+    }
+
+    private record RangeKey(long value, long filmId) implements Comparable<RangeKey> {
+
+        static RangeKey release(Film film) {
+            return film == null || film.getReleaseDate() == null
+                    ? null : new RangeKey(film.getReleaseDate().toEpochDay(), film.getId());
+        }
+
+        static RangeKey duration(Film film) {
+            return film == null || film.getDuration() == null
+                    ? null : new RangeKey(film.getDuration().toMinutes(), film.getId());
+        }
+
+        //границы диапазона: все фильмы со значением не меньше from / не больше to, null - без границы
+        static RangeKey from(Long value) {
+            return new RangeKey(value == null ? Long.MIN_VALUE : value, Long.MIN_VALUE);
+        }
+
+        static RangeKey to(Long value) {
+            return new RangeKey(value == null ? Long.MAX_VALUE : value, Long.MAX_VALUE);
+        }
+
+        @Override
+        public int compareTo(RangeKey other) {
+            int byValue = Long.compare(value, other.value);
+            return byValue != 0 ? byValue : Long.compare(filmId, other.filmId);
+        }
+    }
+
+    private record PopularityKey(long likes, long filmId) implements Comparable<PopularityKey> {
+
+        static PopularityKey of(Film film) {
+            return new PopularityKey(film.getLikes().size(), film.getId());
+        }
+
+        @Override
+        public int compareTo(PopularityKey other) {
+            int byLikes = Long.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Long.compare(filmId, other.filmId);
+        }
     }
 }
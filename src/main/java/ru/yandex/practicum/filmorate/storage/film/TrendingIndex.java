@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Оценки трендов с экспоненциальным затуханием: лайк в момент t добавляет фильму exp(t / τ), где τ - окно.
+ * Оценка в момент now - эта сумма, умноженная на общий для всех фильмов множитель exp(-now / τ),
+ * поэтому порядок фильмов со временем не меняется и рейтинг перестраивается только при лайках.
+ * Суммы хранятся логарифмами, иначе exp(t / τ) переполнил бы double. На фильм - одно число на окно,
+ * сколько бы лайков он ни получил, и число лайков со временем, из которых сложены суммы.
+ * <p>
+ * Рейтинг окна держит только CAPACITY лучших фильмов и порог - верхнюю границу оценок остальных.
+ * Лайк фильма ниже порога обновляет лишь его оценки; если лучшие фильмы выбыли и их осталось меньше
+ * запрошенного, рейтинг собирается заново из оценок.
+ */
+public class TrendingIndex {
+    //вдвое больше наибольшей выдачи: пересборка нужна, только если выбыла половина рейтинга
+    public static final int CAPACITY = 2000;
+
+    private final List<Duration> windows;
+    //оценки не меняются на месте, а заменяются целиком: читатель видит согласованный снимок
+    private final ConcurrentMap<Long, Score> scores = new ConcurrentHashMap<>();
+    private final Ranking[] rankings;
+    //обновления идут под чтением, пересборка рейтинга - под записью
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public TrendingIndex(List<Duration> windows) {
+        this.windows = List.copyOf(windows);
+        rankings = new Ranking[windows.size()];
+        for (int i = 0; i < rankings.length; i++) {
+            rankings[i] = new Ranking();
+        }
+    }
+
+    //вызывается под блокировкой фильма
+    public void liked(long filmId, Instant likedAt) {
+        Score previous = scores.get(filmId);
+        double[] current = new double[windows.size()];
+        for (int i = 0; i < current.length; i++) {
+            double score = (double) likedAt.getEpochSecond() / windows.get(i).toSeconds();
+            current[i] = previous == null ? score : logSumExp(previous.sums()[i], score);
+        }
+        replace(filmId, previous, new Score(current, previous == null ? 1 : previous.likes() + 1));
+    }
+
+    /**
+     * Время снимаемого лайка не хранится: вычитается средний вклад одного лайка со временем. Лайки без
+     * времени (пришедшие вместе с фильмом или из журнала до появления трендов) в оценку не входят,
+     * но отличить их при снятии нельзя - снятие такого лайка тоже уменьшает оценку.
+     * Вызывается под блокировкой фильма.
+     */
+    public void unliked(long filmId) {
+        Score previous = scores.get(filmId);
+        if (previous == null) return;
+        if (previous.likes() <= 1) {
+            replace(filmId, previous, null);
+            return;
+        }
+        double[] current = new double[previous.sums().length];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = previous.sums()[i] + Math.log1p(-1.0 / previous.likes());
+        }
+        replace(filmId, previous, new Score(current, previous.likes() - 1));
+    }
+
+    public void removed(long filmId) {
+        Score previous = scores.get(filmId);
+        if (previous != null) replace(filmId, previous, null);
+    }
+
+    //id фильмов с наибольшей оценкой в окне, по убыванию; не больше CAPACITY
+    public long[] top(Duration window, int count) {
+        int index = windows.indexOf(window);
+        if (index < 0) throw new IllegalArgumentException("Окно трендов не поддерживается: " + window);
+        Ranking ranking = rankings[index];
+        if (ranking.size < Math.min(count, CAPACITY) && ranking.floor > Double.NEGATIVE_INFINITY) rebuild(index);
+        //во время обновления фильм ненадолго присутствует в рейтинге под двумя оценками
+        LongHashSet seen = new LongHashSet();
+        long[] top = new long[count];
+        int size = 0;
+        for (Trend trend : ranking.top) {
+            if (size == count) break;
+            if (seen.add(trend.filmId())) top[size++] = trend.filmId();
+        }
+        return size == count ? top : Arrays.copyOf(top, size);
+    }
+
+    //оценки для снимка хранилища
+    public Map<Long, Score> scores() {
+        return Map.copyOf(scores);
+    }
+
+    public void restore(long filmId, Score restored) {
+        replace(filmId, scores.get(filmId), new Score(restored.sums().clone(), restored.likes()));
+    }
+
+    private void replace(long filmId, Score previous, Score current) {
+        rebuildLock.readLock().lock();
+        try {
+            if (current != null) {
+                scores.put(filmId, current);
+            } else {
+                scores.remove(filmId);
+            }
+            for (int i = 0; i < rankings.length; i++) {
+                rankings[i].update(filmId, previous == null ? null : previous.sums()[i],
+                        current == null ? null : current.sums()[i]);
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void rebuild(int index) {
+        rebuildLock.writeLock().lock();
+        try {
+            Ranking ranking = rankings[index];
+            //пока ждали блокировку, рейтинг мог собрать другой читатель
+            if (ranking.size >= CAPACITY || ranking.floor == Double.NEGATIVE_INFINITY) return;
+            PriorityQueue<Trend> best = new PriorityQueue<>(CAPACITY + 1, (a, b) -> b.compareTo(a));
+            double floor = Double.NEGATIVE_INFINITY;
+            for (Map.Entry<Long, Score> entry : scores.entrySet()) {
+                best.add(new Trend(entry.getValue().sums()[index], entry.getKey()));
+                if (best.size() > CAPACITY) floor = Math.max(floor, best.poll().score());
+            }
+            ranking.top.clear();
+            ranking.top.addAll(best);
+            ranking.size = best.size();
+            ranking.floor = floor;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private static double logSumExp(double a, double b) {
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    private static final class Ranking {
+        private final NavigableSet<Trend> top = new ConcurrentSkipListSet<>();
+        //не меньше оценки любого фильма вне top; все фильмы в top не ниже порога
+        private volatile double floor = Double.NEGATIVE_INFINITY;
+        private volatile int size;
+
+        //previous и current - оценки фильма до и после, null - оценки нет
+        private void update(long filmId, Double previous, Double current) {
+            if (previous != null && previous.equals(current)) return;
+            Trend previousTrend = previous == null ? null : new Trend(previous, filmId);
+            boolean tracked = previousTrend != null && top.contains(previousTrend);
+            if (!tracked && (current == null || current <= floor)) return;
+            synchronized (this) {
+                //сначала новая оценка, потом удаление старой: читатель рейтинга не потеряет фильм
+                if (current != null && current > floor && top.add(new Trend(current, filmId))) size++;
+                if (previousTrend != null && top.remove(previousTrend)) size--;
+                while (size > CAPACITY) {
+                    floor = Math.max(floor, top.pollLast().score());
+                    size--;
+                }
+            }
+        }
+    }
+
+    //логарифмы сумм по окнам и число лайков со временем, из которых они сложены
+    public record Score(double[] sums, int likes) {
+    }
+
+    private record Trend(double score, long filmId) implements Comparable<Trend> {
+
+        @Override
+        public int compareTo(Trend other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Long.compare(filmId, other.filmId);
+        }
+    }
+}
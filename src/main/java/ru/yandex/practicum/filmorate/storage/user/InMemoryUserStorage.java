@@ -1,15 +1,60 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.StripedLocks;
+import ru.yandex.practicum.filmorate.util.LongCounter;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
+    //у пользователя с огромным списком друзей обход ограничен выборкой друзей и их друзей
+    private static final int MAX_FRIENDS_SCANNED = 1_000;
+    //с какого числа друзей обход второго круга идёт параллельно
+    private static final int PARALLEL_THRESHOLD = 64;
+    private static final Comparator<Suggestion> WORST_FIRST = Comparator.comparingInt(Suggestion::mutual)
+            .thenComparing(Comparator.comparingLong(Suggestion::id).reversed());
+
+    //упорядочено по id: это и есть индекс для постраничной выдачи
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final StripedLocks locks = new StripedLocks(64);
+    private final AtomicLong sequence = new AtomicLong();
+    //размер skip-list считается обходом, поэтому счётчики для метрик ведутся отдельно
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong friendLinks = new AtomicLong();
+    private final StorageJournal journal;
+
+    public InMemoryUserStorage() {
+        this(StorageJournal.NONE);
+    }
+
+    public InMemoryUserStorage(StorageJournal journal) {
+        this.journal = journal;
+    }
+
+    @Autowired
+    public InMemoryUserStorage(ObjectProvider<StorageJournal> journal) {
+        this(journal.getIfAvailable(() -> StorageJournal.NONE));
+    }
 
     @Override
     public User getUser(Long id) {
@@ -18,23 +63,266 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public Collection<User> getUsers() {
-        return users.values();
+        return List.copyOf(users.values());
+    }
+
+    @Override
+    public List<User> getUsers(long after, int limit) {
+        List<User> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<User> iterator = users.tailMap(after, false).values().iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    @Override
+    public List<User> getFriends(long id, long after, int limit) {
+        User user = users.get(id);
+        if (user == null) return List.of();
+        long[] friendIds = user.getFriends().toLongArray(after, limit);
+        List<User> page = new ArrayList<>(friendIds.length);
+        for (long friendId : friendIds) {
+            User friend = users.get(friendId);
+            if (friend != null) page.add(friend);
+        }
+        return page;
+    }
+
+    @Override
+    public Collection<User> getCommonFriends(Long id, Long otherId) {
+        User user = users.get(id);
+        User other = users.get(otherId);
+        if (user == null || other == null) return List.of();
+        long[] common = user.getFriends().intersection(other.getFriends());
+        List<User> result = new ArrayList<>(common.length);
+        for (long friendId : common) {
+            User friend = users.get(friendId);
+            if (friend != null) result.add(friend);
+        }
+        return result;
+    }
+
+    @Override
+    public int countCommonFriends(Long id, Long otherId) {
+        User user = users.get(id);
+        User other = users.get(otherId);
+        if (user == null || other == null) return 0;
+        return user.getFriends().intersectionSize(other.getFriends());
+    }
+
+    /**
+     * Второй круг графа дружбы: для каждого друга обходятся его друзья, и число общих друзей копится
+     * в примитивных счётчиках. При большом числе друзей обход делится между потоками ForkJoinPool,
+     * у каждого свой счётчик, затем счётчики сливаются. Обход ограничен MAX_FRIENDS_SCANNED друзей
+     * и столькими же друзьями каждого друга, поэтому стоимость не превышает MAX_FRIENDS_SCANNED².
+     */
+    @Override
+    public List<User> getFriendSuggestions(long id, int limit) {
+        User user = users.get(id);
+        if (user == null) return List.of();
+        LongHashSet direct = user.getFriends();
+        long[] friends = direct.toLongArray(MAX_FRIENDS_SCANNED);
+        LongCounter mutual = LongCounter.countNeighbours(friends, friendId -> {
+            User friend = users.get(friendId);
+            return friend == null ? null : friend.getFriends();
+        }, MAX_FRIENDS_SCANNED, candidate -> candidate != id && !direct.contains(candidate), PARALLEL_THRESHOLD);
+
+        //лучшие limit кандидатов: в куче наверху худший из отобранных
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(WORST_FIRST);
+        mutual.forEach((candidate, count) -> {
+            Suggestion suggestion = new Suggestion(candidate, count);
+            if (best.size() < limit) {
+                best.add(suggestion);
+            } else if (WORST_FIRST.compare(suggestion, best.peek()) > 0) {
+                best.poll();
+                best.add(suggestion);
+            }
+        });
+        return best.stream()
+                .sorted(WORST_FIRST.reversed())
+                .map(suggestion -> users.get(suggestion.id()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return count.get();
+    }
+
+    @Override
+    public long countFriendLinks() {
+        return friendLinks.get();
+    }
+
+    @Override
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long first = sequence.getAndAdd(count) + 1;
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    @Override
+    public long lastId() {
+        return sequence.get();
+    }
+
+    @Override
+    public void restoreLastId(long id) {
+        sequence.accumulateAndGet(id, Math::max);
     }
 
     @Override
     public User addUser(User user) {
-        users.put(user.getId(), user);
+        saveUser(user).join();
         return user;
     }
 
+    @Override
+    public void addUsers(List<User> batch) {
+        //записи пакета фиксируются в журнале одной группой: ждём их после применения всего пакета
+        List<CompletableFuture<Void>> logged = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            logged.add(saveUser(user));
+        }
+        CompletableFuture.allOf(logged.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Друзья из тела запроса применяются в обе стороны, как в UserDbStorage: сохраняется пользователь
+     * с прежним списком, затем ушедшие друзья снимаются, а новые добавляются через removeFriend и friend
+     * под блокировками обоих. Несуществующие id пропускаются.
+     */
     @Override
     public User updateUser(User user) {
-        users.put(user.getId(), user);
+        long[] wanted = user.getFriends() == null ? new long[0] : user.getFriends().toLongArray();
+        CompletableFuture<Void> saved;
+        Lock lock = locks.get(user.getId());
+        lock.lock();
+        try {
+            User previous = users.get(user.getId());
+            user.setFriends(previous == null ? new LongHashSet() : previous.getFriends());
+            saved = saveUser(user);
+        } finally {
+            lock.unlock();
+        }
+        saved.join();
+        LongHashSet target = LongHashSet.of(wanted);
+        for (long friendId : user.getFriends().toLongArray()) {
+            if (!target.contains(friendId)) removeFriend(user.getId(), friendId);
+        }
+        List<CompletableFuture<Void>> logged = new ArrayList<>(wanted.length);
+        for (long friendId : wanted) {
+            if (friendId != user.getId() && !user.getFriends().contains(friendId)) {
+                logged.add(friend(user.getId(), friendId));
+            }
+        }
+        CompletableFuture.allOf(logged.toArray(CompletableFuture[]::new)).join();
         return user;
     }
 
+    /**
+     * Дружба симметрична, поэтому id удалённого пользователя нужно убрать только из списков его друзей:
+     * каскад стоит O(числа друзей). Новых связей с удалённым не появится - addFriend проверяет обоих
+     * под их блокировками. Проигрывание записи журнала повторяет каскад, отдельных записей он не пишет.
+     */
     @Override
     public void removeUser(Long id) {
-        users.remove(id);
+        CompletableFuture<Void> logged;
+        User user;
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            user = users.remove(id);
+            if (user == null) return;
+            count.decrementAndGet();
+            friendLinks.addAndGet(-user.getFriends().size());
+            logged = journal.userRemoved(id);
+        } finally {
+            lock.unlock();
+        }
+        //блокировки друзей берутся по одной после снятия своей: порядок захвата не важен
+        for (long friendId : user.getFriends().toLongArray()) {
+            Lock friendLock = locks.get(friendId);
+            friendLock.lock();
+            try {
+                User friend = users.get(friendId);
+                if (friend != null && friend.getFriends().remove(id.longValue())) friendLinks.decrementAndGet();
+            } finally {
+                friendLock.unlock();
+            }
+        }
+        logged.join();
+    }
+
+    @Override
+    public void addFriend(Long id, Long friendId) {
+        friend(id, friendId).join();
+    }
+
+    @Override
+    public void addFriendships(List<Friendship> friendships) {
+        List<CompletableFuture<Void>> logged = new ArrayList<>(friendships.size());
+        for (Friendship friendship : friendships) {
+            logged.add(friend(friendship.getUserId(), friendship.getFriendId()));
+        }
+        CompletableFuture.allOf(logged.toArray(CompletableFuture[]::new)).join();
+    }
+
+    @Override
+    public void removeFriend(Long id, Long friendId) {
+        CompletableFuture<Void> logged;
+        locks.lockBoth(id, friendId);
+        try {
+            User user = users.get(id);
+            User friend = users.get(friendId);
+            if (user != null && user.getFriends().remove(friendId.longValue())) friendLinks.decrementAndGet();
+            if (friend != null && friend.getFriends().remove(id.longValue())) friendLinks.decrementAndGet();
+            logged = journal.unfriended(id, friendId);
+        } finally {
+            locks.unlockBoth(id, friendId);
+        }
+        logged.join();
+    }
+
+    private CompletableFuture<Void> saveUser(User user) {
+        //сущность могла прийти с заранее выданным id - последовательность не должна его повторить
+        sequence.accumulateAndGet(user.getId(), Math::max);
+        Lock lock = locks.get(user.getId());
+        lock.lock();
+        try {
+            User previous = users.put(user.getId(), user);
+            if (previous == null) count.incrementAndGet();
+            friendLinks.addAndGet(user.getFriends().size() - (previous == null ? 0 : previous.getFriends().size()));
+            return journal.userSaved(user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> friend(long id, long friendId) {
+        locks.lockBoth(id, friendId);
+        try {
+            User user = users.get(id);
+            User friend = users.get(friendId);
+            if (user == null || friend == null) return StorageJournal.DONE;
+            if (user.getFriends().add(friendId)) friendLinks.incrementAndGet();
+            if (friend.getFriends().add(id)) friendLinks.incrementAndGet();
+            return journal.friended(id, friendId);
+        } finally {
+            locks.unlockBoth(id, friendId);
+        }
+    }
+
+    private record Suggestion(long id, int mutual) {
     }
 }
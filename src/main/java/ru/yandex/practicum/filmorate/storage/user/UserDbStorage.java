@@ -0,0 +1,236 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.DbSequences;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db")
+public class UserDbStorage implements UserStorage {
+    private static final String SEQUENCE = "user_id_seq";
+    private static final String SELECT_USERS = "SELECT u.id, u.email, u.login, u.name, u.birthday FROM users u ";
+    private static final String MERGE_FRIENDSHIP = "MERGE INTO friendships (user_id, friend_id) KEY (user_id, friend_id) "
+            + "VALUES (?, ?)";
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        Date birthday = rs.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        return user;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    public UserDbStorage(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    @Override
+    public User getUser(Long id) {
+        List<User> users = jdbcTemplate.query(SELECT_USERS + "WHERE u.id = ?", USER_MAPPER, id);
+        if (users.isEmpty()) return null;
+        User user = users.get(0);
+        jdbcTemplate.queryForList("SELECT friend_id FROM friendships WHERE user_id = ?", Long.class, id)
+                .forEach(user.getFriends()::add);
+        return user;
+    }
+
+    @Override
+    public Collection<User> getUsers() {
+        List<User> users = jdbcTemplate.query(SELECT_USERS + "ORDER BY u.id", USER_MAPPER);
+        Map<Long, User> byId = users.stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friendships", rs -> {
+            User user = byId.get(rs.getLong("user_id"));
+            if (user != null) user.getFriends().add(rs.getLong("friend_id"));
+        });
+        return users;
+    }
+
+    @Override
+    public List<User> getUsers(long after, int limit) {
+        return withFriends(jdbcTemplate.query(SELECT_USERS + "WHERE u.id > ? ORDER BY u.id LIMIT ?", USER_MAPPER,
+                after, limit));
+    }
+
+    @Override
+    public List<User> getFriends(long id, long after, int limit) {
+        return withFriends(jdbcTemplate.query(SELECT_USERS
+                + "JOIN friendships f ON f.friend_id = u.id AND f.user_id = ? "
+                + "WHERE u.id > ? ORDER BY u.id LIMIT ?", USER_MAPPER, id, after, limit));
+    }
+
+    @Override
+    public Collection<User> getCommonFriends(Long id, Long otherId) {
+        //пересечение считается по первичному ключу friendships, без выгрузки списков друзей в JVM
+        return withFriends(jdbcTemplate.query(SELECT_USERS
+                + "JOIN friendships a ON a.friend_id = u.id AND a.user_id = ? "
+                + "JOIN friendships b ON b.friend_id = u.id AND b.user_id = ? "
+                + "ORDER BY u.id", USER_MAPPER, id, otherId));
+    }
+
+    @Override
+    public int countCommonFriends(Long id, Long otherId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friendships a "
+                + "JOIN friendships b ON b.friend_id = a.friend_id AND b.user_id = ? "
+                + "WHERE a.user_id = ?", Integer.class, otherId, id);
+        return count == null ? 0 : count;
+    }
+
+    //второй круг одним запросом: friendships -> friendships по friendships_friend_idx
+    @Override
+    public List<User> getFriendSuggestions(long id, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT s.friend_id FROM friendships f "
+                        + "JOIN friendships s ON s.user_id = f.friend_id "
+                        + "WHERE f.user_id = ? AND s.friend_id <> ? "
+                        + "AND NOT EXISTS (SELECT 1 FROM friendships d WHERE d.user_id = ? AND d.friend_id = s.friend_id) "
+                        + "GROUP BY s.friend_id ORDER BY COUNT(*) DESC, s.friend_id LIMIT ?",
+                Long.class, id, id, id, limit);
+        if (ids.isEmpty()) return List.of();
+        Map<Long, User> byId = withFriends(namedJdbcTemplate.query(SELECT_USERS + "WHERE u.id IN (:ids)",
+                Map.of("ids", ids), USER_MAPPER)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream().map(byId::get).toList();
+    }
+
+    @Override
+    public long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    @Override
+    public long countFriendLinks() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friendships", Long.class);
+    }
+
+    @Override
+    public long nextId() {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE, Long.class);
+    }
+
+    @Override
+    @Transactional
+    public User addUser(User user) {
+        jdbcTemplate.update("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+        insertFriends(user.getId(), user.getFriends().toLongArray());
+        DbSequences.advancePast(jdbcTemplate, SEQUENCE, user.getId());
+        return user;
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        return jdbcTemplate.queryForList("SELECT NEXT VALUE FOR " + SEQUENCE + " FROM SYSTEM_RANGE(1, ?)", Long.class,
+                count).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    @Transactional
+    public void addUsers(List<User> users) {
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                users.stream().map(user -> new Object[]{user.getId(), user.getEmail(), user.getLogin(),
+                        user.getName(), user.getBirthday()}).toList());
+        List<Object[]> friendships = new ArrayList<>();
+        for (User user : users) {
+            for (long friendId : user.getFriends().toLongArray()) {
+                friendships.add(new Object[]{user.getId(), friendId});
+                friendships.add(new Object[]{friendId, user.getId()});
+            }
+        }
+        if (!friendships.isEmpty()) jdbcTemplate.batchUpdate(MERGE_FRIENDSHIP, friendships);
+        users.stream().mapToLong(User::getId).max()
+                .ifPresent(maxId -> DbSequences.advancePast(jdbcTemplate, SEQUENCE, maxId));
+    }
+
+    @Override
+    @Transactional
+    public User updateUser(User user) {
+        jdbcTemplate.update("UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?",
+                user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId());
+        //дружба симметрична: меняются рёбра в обе стороны, как в addFriend и removeFriend
+        jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ? OR friend_id = ?", user.getId(), user.getId());
+        insertFriends(user.getId(), user.getFriends().toLongArray());
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public void removeUser(Long id) {
+        //лайки и дружба уходят каскадом внешних ключей, а счётчики лайков фильмов пересчитываются после удаления:
+        //как и в FilmDbStorage, сначала film_likes, потом films - блокировки строк берутся в одном порядке
+        List<Long> filmIds = jdbcTemplate.queryForList("SELECT film_id FROM film_likes WHERE user_id = ?",
+                Long.class, id);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+        if (filmIds.isEmpty()) return;
+        namedJdbcTemplate.update("UPDATE films SET likes_count = (SELECT COUNT(*) FROM film_likes "
+                + "WHERE film_likes.film_id = films.id) WHERE id IN (:ids)", Map.of("ids", filmIds));
+    }
+
+    @Override
+    public void addFriend(Long id, Long friendId) {
+        //оба направления дружбы уходят одним батчем
+        jdbcTemplate.batchUpdate(MERGE_FRIENDSHIP, List.of(new Object[]{id, friendId}, new Object[]{friendId, id}));
+    }
+
+    @Override
+    public void addFriendships(List<Friendship> friendships) {
+        List<Object[]> rows = new ArrayList<>(friendships.size() * 2);
+        for (Friendship friendship : friendships) {
+            rows.add(new Object[]{friendship.getUserId(), friendship.getFriendId()});
+            rows.add(new Object[]{friendship.getFriendId(), friendship.getUserId()});
+        }
+        jdbcTemplate.batchUpdate(MERGE_FRIENDSHIP, rows);
+    }
+
+    @Override
+    public void removeFriend(Long id, Long friendId) {
+        jdbcTemplate.update("DELETE FROM friendships WHERE (user_id = ? AND friend_id = ?) "
+                + "OR (user_id = ? AND friend_id = ?)", id, friendId, friendId, id);
+    }
+
+    //оба направления каждой дружбы
+    private void insertFriends(long id, long[] friendIds) {
+        if (friendIds.length == 0) return;
+        List<Object[]> rows = new ArrayList<>(friendIds.length * 2);
+        for (long friendId : friendIds) {
+            rows.add(new Object[]{id, friendId});
+            rows.add(new Object[]{friendId, id});
+        }
+        jdbcTemplate.batchUpdate(MERGE_FRIENDSHIP, rows);
+    }
+
+    //подгружает друзей страницы пользователей одним запросом
+    private List<User> withFriends(List<User> users) {
+        if (users.isEmpty()) return users;
+        Map<Long, User> byId = users.stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        namedJdbcTemplate.query("SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids)",
+                Map.of("ids", byId.keySet()),
+                rs -> {
+                    byId.get(rs.getLong("user_id")).getFriends().add(rs.getLong("friend_id"));
+                });
+        return users;
+    }
+}
@@ -1,8 +1,10 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserStorage {
 
@@ -10,9 +12,49 @@ public interface UserStorage {
 
     Collection<User> getUsers();
 
+    //страница по возрастанию id, начиная с первого id больше after
+    List<User> getUsers(long after, int limit);
+
+    //страница друзей по возрастанию id, начиная с первого id больше after
+    List<User> getFriends(long id, long after, int limit);
+
+    Collection<User> getCommonFriends(Long id, Long otherId);
+
+    int countCommonFriends(Long id, Long otherId);
+
+    //друзья друзей, ещё не ставшие друзьями, по убыванию числа общих друзей
+    List<User> getFriendSuggestions(long id, int limit);
+
+    //размеры для метрик: число пользователей и число записей в списках друзей (дружба даёт две)
+    long count();
+
+    long countFriendLinks();
+
+    long nextId();
+
+    //идентификаторы для пакетной вставки одним обращением
+    long[] nextIds(int count);
+
     User addUser(User user);
 
+    void addUsers(List<User> users);
+
     User updateUser(User user);
 
     void removeUser(Long id);
+
+    void addFriend(Long id, Long friendId);
+
+    void addFriendships(List<Friendship> friendships);
+
+    void removeFriend(Long id, Long friendId);
+
+    //последний выданный id для снимка: иначе после перезапуска повторились бы id удалённых пользователей
+    default long lastId() {
+        return 0;
+    }
+
+    //последовательность только растёт: id меньше уже выданных не возвращает её назад
+    default void restoreLastId(long id) {
+    }
 }
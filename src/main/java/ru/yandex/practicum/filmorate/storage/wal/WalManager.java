@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Восстановление хранилищ при старте (последний снимок + хвост журнала) и периодическое уплотнение:
+ * ротация сегмента, снимок, удаление сегментов и снимков, которые он покрывает.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "true")
+public class WalManager {
+    private final WriteAheadLog wal;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    @Autowired
+    public WalManager(WriteAheadLog wal, FilmStorage filmStorage, UserStorage userStorage) {
+        this.wal = wal;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    @PostConstruct
+    public void recover() throws IOException {
+        long started = System.nanoTime();
+        Path directory = wal.getDirectory();
+        long firstSegment = 0;
+        Optional<Path> snapshot = SnapshotFile.latest(directory);
+        if (snapshot.isPresent()) {
+            firstSegment = SnapshotFile.read(snapshot.get(), filmStorage, userStorage);
+        }
+        long nextSegment = firstSegment;
+        long records = 0;
+        for (Path segment : WriteAheadLog.segments(directory)) {
+            long number = WriteAheadLog.segmentNumber(segment);
+            if (number < firstSegment) continue;
+            records += WriteAheadLog.replay(segment, in -> WalRecords.apply(in, filmStorage, userStorage));
+            nextSegment = number + 1;
+        }
+        //повреждённый хвост последнего сегмента не дописываем - пишем в новый
+        wal.open(nextSegment);
+        log.info("Хранилища восстановлены за {} мс: снимок {}, записей журнала {}",
+                (System.nanoTime() - started) / 1_000_000, snapshot.map(Path::getFileName).orElse(null), records);
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.wal.snapshot-interval}",
+            fixedDelayString = "${filmorate.wal.snapshot-interval}")
+    public void compact() throws IOException {
+        //всё, что попало в журнал до ротации, уже применено к хранилищам и войдёт в снимок;
+        //более поздние изменения, попавшие в снимок, повторно проиграются идемпотентно
+        long segment = wal.rotate().join();
+        Path snapshot = SnapshotFile.write(wal.getDirectory(), segment, filmStorage, userStorage);
+        for (Path old : WriteAheadLog.segments(wal.getDirectory())) {
+            if (WriteAheadLog.segmentNumber(old) < segment) Files.deleteIfExists(old);
+        }
+        for (Path old : SnapshotFile.snapshots(wal.getDirectory())) {
+            if (!old.equals(snapshot)) Files.deleteIfExists(old);
+        }
+        log.info("Снимок хранилищ записан: {}", snapshot.getFileName());
+    }
+}
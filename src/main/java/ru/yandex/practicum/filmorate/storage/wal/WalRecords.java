@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Двоичный формат записей журнала и снимков.
+ * Запись - код операции и её аргументы; фильмы и пользователи пишутся целиком вместе с лайками и друзьями.
+ */
+final class WalRecords {
+    static final byte FILM_SAVED = 1;
+    static final byte FILM_REMOVED = 2;
+    static final byte LIKED = 3;
+    static final byte UNLIKED = 4;
+    static final byte USER_SAVED = 5;
+    static final byte USER_REMOVED = 6;
+    static final byte FRIENDED = 7;
+    static final byte UNFRIENDED = 8;
+    //лайк со временем постановки; LIKED пишется, только когда время неизвестно
+    static final byte LIKED_AT = 9;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private WalRecords() {
+    }
+
+    static void writeFilm(DataOutput out, Film film) throws IOException {
+        out.writeLong(film.getId());
+        writeString(out, film.getName());
+        writeString(out, film.getDescription());
+        writeDate(out, film.getReleaseDate());
+        out.writeLong(film.getDuration() == null ? 0 : film.getDurationMinutes());
+        writeIds(out, film.getLikes().toLongArray());
+    }
+
+    static Film readFilm(DataInput in) throws IOException {
+        Film film = new Film();
+        film.setId(in.readLong());
+        film.setName(readString(in));
+        film.setDescription(readString(in));
+        film.setReleaseDate(readDate(in));
+        film.setDurationMinutes(in.readLong());
+        int likes = in.readInt();
+        for (int i = 0; i < likes; i++) {
+            film.getLikes().add(in.readLong());
+        }
+        return film;
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLogin());
+        writeString(out, user.getName());
+        writeDate(out, user.getBirthday());
+        writeIds(out, user.getFriends().toLongArray());
+    }
+
+    static User readUser(DataInput in) throws IOException {
+        User user = new User();
+        user.setId(in.readLong());
+        user.setEmail(readString(in));
+        user.setLogin(readString(in));
+        user.setName(readString(in));
+        user.setBirthday(readDate(in));
+        int friends = in.readInt();
+        for (int i = 0; i < friends; i++) {
+            user.getFriends().add(in.readLong());
+        }
+        return user;
+    }
+
+    //применяет одну запись журнала к хранилищам; все операции идемпотентны
+    static void apply(DataInput in, FilmStorage filmStorage, UserStorage userStorage) throws IOException {
+        byte operation = in.readByte();
+        switch (operation) {
+            case FILM_SAVED -> filmStorage.addFilm(readFilm(in));
+            case FILM_REMOVED -> filmStorage.removeFilm(in.readLong());
+            case LIKED -> filmStorage.addLike(in.readLong(), in.readLong(), null);
+            case LIKED_AT -> filmStorage.addLike(in.readLong(), in.readLong(), Instant.ofEpochMilli(in.readLong()));
+            case UNLIKED -> filmStorage.removeLike(in.readLong(), in.readLong());
+            case USER_SAVED -> userStorage.addUser(readUser(in));
+            case USER_REMOVED -> userStorage.removeUser(in.readLong());
+            case FRIENDED -> userStorage.addFriend(in.readLong(), in.readLong());
+            case UNFRIENDED -> userStorage.removeFriend(in.readLong(), in.readLong());
+            default -> throw new IOException("Неизвестная операция в журнале: " + operation);
+        }
+    }
+
+    private static void writeIds(DataOutput out, long[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,336 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений (write-ahead log) с групповой фиксацией.
+ * Запросы кладут записи в ограниченную очередь, единственный поток-писатель забирает их пачкой,
+ * пишет в текущий сегмент и вызывает fsync один раз на пачку.
+ * Сегменты нумеруются; снимок с номером N означает, что после него надо проиграть сегменты начиная с N.
+ * Формат записи: длина, CRC32, тело из {@link WalRecords}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "true")
+public class WriteAheadLog implements StorageJournal, Closeable {
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final int MAX_BATCH = 4_096;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private volatile boolean open;
+    private Thread writer;
+    private FileChannel channel;
+    private long segment;
+
+    @Autowired
+    public WriteAheadLog(@Value("${filmorate.wal.directory}") Path directory,
+                         @Value("${filmorate.wal.fsync}") boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Начинает запись в новый сегмент. До вызова записи не журналируются - так проигрывается журнал при старте.
+     */
+    public synchronized void open(long firstSegment) throws IOException {
+        if (open) throw new IllegalStateException("Журнал уже открыт");
+        Files.createDirectories(directory);
+        segment = firstSegment;
+        channel = openSegment(segment);
+        writer = new Thread(this::writeLoop, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        open = true;
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает следующий. Возвращает номер нового сегмента:
+     * все записи, сделанные до ротации, лежат в сегментах с меньшими номерами.
+     */
+    public CompletableFuture<Long> rotate() {
+        Entry entry = new Entry(null, new CompletableFuture<>());
+        enqueue(entry);
+        return entry.done.thenApply(ignored -> segment);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open) return;
+        open = false;
+        Entry stop = new Entry(new byte[0], new CompletableFuture<>());
+        enqueue(stop);
+        stop.done.join();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Проигрывает сегмент. Повреждённый хвост (например, оборванная при сбое запись) отбрасывается.
+     *
+     * @return число применённых записей
+     */
+    public static long replay(Path segment, RecordHandler handler) throws IOException {
+        long applied = 0;
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(segment), BUFFER_SIZE);
+             DataInputStream in = new DataInputStream(file)) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0) break;
+                    payload = in.readNBytes(length);
+                    crc.reset();
+                    crc.update(payload);
+                    if (payload.length != length || (int) crc.getValue() != checksum) {
+                        log.warn("Журнал {}: повреждённая запись после {} применённых, хвост отброшен", segment, applied);
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                handler.handle(new DataInputStream(new ByteArrayInputStream(payload)));
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public CompletableFuture<Void> filmSaved(Film film) {
+        if (!open) return DONE;
+        return append(out -> {
+            out.writeByte(WalRecords.FILM_SAVED);
+            WalRecords.writeFilm(out, film);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> filmRemoved(long id) {
+        return appendId(WalRecords.FILM_REMOVED, id);
+    }
+
+    @Override
+    public CompletableFuture<Void> liked(long filmId, long userId, Instant likedAt) {
+        if (likedAt == null) return appendPair(WalRecords.LIKED, filmId, userId);
+        if (!open) return DONE;
+        return append(out -> {
+            out.writeByte(WalRecords.LIKED_AT);
+            out.writeLong(filmId);
+            out.writeLong(userId);
+            out.writeLong(likedAt.toEpochMilli());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> unliked(long filmId, long userId) {
+        return appendPair(WalRecords.UNLIKED, filmId, userId);
+    }
+
+    @Override
+    public CompletableFuture<Void> userSaved(User user) {
+        if (!open) return DONE;
+        return append(out -> {
+            out.writeByte(WalRecords.USER_SAVED);
+            WalRecords.writeUser(out, user);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> userRemoved(long id) {
+        return appendId(WalRecords.USER_REMOVED, id);
+    }
+
+    @Override
+    public CompletableFuture<Void> friended(long id, long friendId) {
+        return appendPair(WalRecords.FRIENDED, id, friendId);
+    }
+
+    @Override
+    public CompletableFuture<Void> unfriended(long id, long friendId) {
+        return appendPair(WalRecords.UNFRIENDED, id, friendId);
+    }
+
+    private CompletableFuture<Void> appendId(byte operation, long id) {
+        if (!open) return DONE;
+        return append(out -> {
+            out.writeByte(operation);
+            out.writeLong(id);
+        });
+    }
+
+    private CompletableFuture<Void> appendPair(byte operation, long first, long second) {
+        if (!open) return DONE;
+        return append(out -> {
+            out.writeByte(operation);
+            out.writeLong(first);
+            out.writeLong(second);
+        });
+    }
+
+    private CompletableFuture<Void> append(RecordWriter record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try {
+            record.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Entry entry = new Entry(bytes.toByteArray(), new CompletableFuture<>());
+        enqueue(entry);
+        return entry.done;
+    }
+
+    private void enqueue(Entry entry) {
+        try {
+            //очередь ограничена: при отставании диска запросы ждут, а не копят память
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Запись в журнал прервана", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CRC32 crc = new CRC32();
+        while (true) {
+            batch.clear();
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            try {
+                for (Entry entry : batch) {
+                    if (entry.payload == null) {
+                        flush(buffer, pending);
+                        channel.close();
+                        channel = openSegment(++segment);
+                        entry.done.complete(null);
+                    } else if (entry.payload.length == 0) {
+                        flush(buffer, pending);
+                        entry.done.complete(null);
+                        return;
+                    } else {
+                        if (buffer.remaining() < entry.payload.length + 8) flush(buffer, pending);
+                        crc.reset();
+                        crc.update(entry.payload);
+                        ByteBuffer target = buffer.remaining() >= entry.payload.length + 8
+                                ? buffer : ByteBuffer.allocate(entry.payload.length + 8);
+                        target.putInt(entry.payload.length).putInt((int) crc.getValue()).put(entry.payload);
+                        if (target != buffer) {
+                            target.flip();
+                            writeFully(target);
+                        }
+                        pending.add(entry.done);
+                    }
+                }
+                flush(buffer, pending);
+            } catch (IOException e) {
+                log.error("Ошибка записи журнала", e);
+                pending.forEach(done -> done.completeExceptionally(e));
+                pending.clear();
+                batch.forEach(entry -> entry.done.completeExceptionally(e));
+                buffer.clear();
+            }
+        }
+    }
+
+    private void flush(ByteBuffer buffer, List<CompletableFuture<Void>> pending) throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+        if (pending.isEmpty()) return;
+        if (fsync) channel.force(false);
+        pending.forEach(done -> done.complete(null));
+        pending.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(DataInputStream record) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private record Entry(byte[] payload, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Счётчики по ключам long с открытой адресацией: ключи в long[], значения в int[], без упаковки.
+ * Не потокобезопасен - рассчитан на заполнение одним потоком и слияние частичных результатов через addAll.
+ */
+public class LongCounter {
+    private static final long FREE = 0L;
+    private static final int MIN_CAPACITY = 16;
+    //предел предварительного размера счётчика в countNeighbours, дальше он растёт сам
+    private static final int MAX_PRESIZED = 1 << 16;
+
+    //ноль - маркер свободной ячейки, поэтому счётчик нуля хранится отдельно
+    private long[] keys;
+    private int[] counts;
+    private int zeroCount;
+    private boolean hasZero;
+    private int size;
+    private int shift;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int count);
+    }
+
+    public LongCounter() {
+        this(0);
+    }
+
+    //ёмкость под expected ключей без перестроения таблицы
+    public LongCounter(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (expected * 4L > capacity * 3L) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        counts = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Сколько раз каждое значение встречается среди соседей sources: у каждого источника берутся
+     * не больше limit соседей, прошедших filter. В последовательном обходе счётчик сразу создаётся под верхнюю
+     * оценку числа ключей и не перестраивается. От parallelThreshold источников обход делится между потоками
+     * ForkJoinPool: счётчик заводится на каждую подзадачу, поэтому они начинают с малого размера и растут
+     * по своей части, а затем сливаются.
+     *
+     * @param neighbours соседи источника, null - источника уже нет
+     */
+    public static LongCounter countNeighbours(long[] sources, LongFunction<LongHashSet> neighbours, int limit,
+                                              LongPredicate filter, int parallelThreshold) {
+        ObjLongConsumer<LongCounter> count = (counter, source) -> {
+            LongHashSet set = neighbours.apply(source);
+            if (set == null) return;
+            for (long neighbour : set.toLongArray(limit)) {
+                if (filter.test(neighbour)) counter.add(neighbour, 1);
+            }
+        };
+        if (sources.length >= parallelThreshold) {
+            return Arrays.stream(sources).parallel().collect(LongCounter::new, count, LongCounter::addAll);
+        }
+        long expected = 0;
+        for (long source : sources) {
+            LongHashSet set = neighbours.apply(source);
+            if (set != null) expected += Math.min(set.size(), limit);
+        }
+        LongCounter counter = new LongCounter((int) Math.min(expected, MAX_PRESIZED));
+        for (long source : sources) {
+            count.accept(counter, source);
+        }
+        return counter;
+    }
+
+    public void add(long key, int delta) {
+        if (key == FREE) {
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroCount += delta;
+            return;
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                counts[i] += delta;
+                return;
+            }
+            if (keys[i] == FREE) {
+                keys[i] = key;
+                counts[i] = delta;
+                if (++size * 4L > keys.length * 3L) grow();
+                return;
+            }
+        }
+    }
+
+    public int get(long key) {
+        if (key == FREE) return zeroCount;
+        int mask = keys.length - 1;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) return counts[i];
+            if (keys[i] == FREE) return 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addAll(LongCounter other) {
+        other.forEach(this::add);
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZero) consumer.accept(FREE, zeroCount);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) consumer.accept(keys[i], counts[i]);
+        }
+    }
+
+    //ключи часто приходят в порядке обхода LongHashSet, то есть отсортированными по его хэшу;
+    //с тем же хэшем они ложились бы в соседние ячейки длинными цепочками, поэтому здесь другое перемешивание (SplitMix64)
+    private int slot(long key) {
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return (int) ((key ^ (key >>> 31)) >>> shift);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length << 1];
+        counts = new int[oldKeys.length << 1];
+        shift--;
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == FREE) continue;
+            int i = slot(oldKeys[j]);
+            while (keys[i] != FREE) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            counts[i] = oldCounts[j];
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Потокобезопасное множество long с открытой адресацией.
+ * Хранит значения в одном массиве long[] без упаковки в Long и узлов HashMap:
+ * около 11-16 байт на элемент вместо ~48+ у HashSet&lt;Long&gt;.
+ * Итератор обходит снимок множества и не бросает ConcurrentModificationException.
+ */
+public class LongHashSet extends AbstractSet<Long> {
+    private static final long FREE = 0L;
+    private static final long[] NO_TABLE = new long[0];
+    private static final int MIN_CAPACITY = 4;
+
+    //ноль - маркер свободной ячейки, поэтому сам ноль хранится отдельным флагом
+    private long[] table = NO_TABLE;
+    private boolean hasZero;
+    private int size;
+    private int shift = 64;
+
+    public LongHashSet() {
+    }
+
+    public LongHashSet(Collection<? extends Long> values) {
+        ensureCapacity(values.size());
+        for (Long value : values) {
+            add(value.longValue());
+        }
+    }
+
+    public static LongHashSet of(long... values) {
+        LongHashSet set = new LongHashSet();
+        set.ensureCapacity(values.length);
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    public synchronized boolean add(long value) {
+        if (value == FREE) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 4L > table.length * 3L) ensureCapacity(size + 1);
+        int mask = table.length - 1;
+        for (int i = slot(value); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) return false;
+            if (current == FREE) {
+                table[i] = value;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    public synchronized boolean remove(long value) {
+        if (value == FREE) {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int i = indexOf(value);
+        if (i < 0) return false;
+        //сдвигаем хвост цепочки назад, чтобы не оставлять "надгробий"
+        int mask = table.length - 1;
+        for (int j = (i + 1) & mask; table[j] != FREE; j = (j + 1) & mask) {
+            int home = slot(table[j]);
+            boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = FREE;
+        size--;
+        return true;
+    }
+
+    public synchronized boolean contains(long value) {
+        if (value == FREE) return hasZero;
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Снимок значений множества в виде примитивного массива.
+     */
+    public long[] toLongArray() {
+        return toLongArray(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Снимок не более limit значений. Значения берутся в порядке хэш-таблицы,
+     * так что для большого множества это псевдослучайная выборка без копирования всего массива.
+     */
+    public synchronized long[] toLongArray(int limit) {
+        long[] result = new long[Math.min(size, limit)];
+        int n = 0;
+        if (hasZero && n < result.length) result[n++] = FREE;
+        for (int i = 0; i < table.length && n < result.length; i++) {
+            if (table[i] != FREE) result[n++] = table[i];
+        }
+        return result;
+    }
+
+    /**
+     * Не более limit наименьших значений больше after, по возрастанию: страница множества без сортировки
+     * всего множества. Кандидаты держатся в куче с наибольшим наверху, стоимость O(n log limit).
+     */
+    public synchronized long[] toLongArray(long after, int limit) {
+        long[] heap = new long[Math.min(size, limit)];
+        if (heap.length == 0) return heap;
+        int n = 0;
+        if (hasZero && after < FREE) heap[n++] = FREE;
+        for (long value : table) {
+            if (value == FREE || value <= after) continue;
+            if (n < heap.length) {
+                heap[n] = value;
+                siftUp(heap, n++);
+            } else if (value < heap[0]) {
+                heap[0] = value;
+                siftDown(heap, n);
+            }
+        }
+        long[] page = Arrays.copyOf(heap, n);
+        Arrays.sort(page);
+        return page;
+    }
+
+    /**
+     * Пересечение с другим множеством: обходим меньшее и проверяем элементы в большем,
+     * поэтому стоимость O(min(|a|, |b|)) независимо от размера большего множества.
+     */
+    public long[] intersection(LongHashSet other) {
+        LongHashSet larger = size() >= other.size() ? this : other;
+        long[] candidates = (larger == this ? other : this).toLongArray();
+        int n = 0;
+        for (long value : candidates) {
+            if (larger.contains(value)) candidates[n++] = value;
+        }
+        return Arrays.copyOf(candidates, n);
+    }
+
+    public int intersectionSize(LongHashSet other) {
+        LongHashSet larger = size() >= other.size() ? this : other;
+        int count = 0;
+        for (long value : (larger == this ? other : this).toLongArray()) {
+            if (larger.contains(value)) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Long number && remove(number.longValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long number && contains(number.longValue());
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        table = NO_TABLE;
+        shift = 64;
+        hasZero = false;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] snapshot = toLongArray();
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Long next() {
+                if (next >= snapshot.length) throw new NoSuchElementException();
+                return snapshot[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (next == 0) throw new IllegalStateException();
+                LongHashSet.this.remove(snapshot[next - 1]);
+            }
+        };
+    }
+
+    private int indexOf(long value) {
+        if (table.length == 0) return -1;
+        int mask = table.length - 1;
+        for (int i = slot(value); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) return i;
+            if (current == FREE) return -1;
+        }
+    }
+
+    private int slot(long value) {
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    //куча с наибольшим значением в корне
+    private static void siftUp(long[] heap, int i) {
+        long value = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] >= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long value = heap[0];
+        int i = 0;
+        for (int child = 1; child < size; child = 2 * i + 1) {
+            if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+            if (heap[child] <= value) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    private synchronized void ensureCapacity(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (expected * 4L > capacity * 3L) {
+            capacity <<= 1;
+        }
+        if (capacity <= table.length) return;
+        long[] old = table;
+        table = new long[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value == FREE) continue;
+            int i = slot(value);
+            while (table[i] != FREE) {
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toLongArray());
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.validation;
+
+/**
+ * Проверка адреса электронной почты за один проход без регулярных выражений.
+ * Поддерживается подмножество RFC 5321/5322, которое встречается на практике:
+ * локальная часть - dot-atom (буквы, цифры и !#$%&'*+-/=?^_`{|}~, точки только между символами)
+ * длиной до 64 символов; домен - не меньше двух меток из букв, цифр и дефисов длиной до 63 символов,
+ * без дефиса по краям, последняя метка - не меньше двух букв. Весь адрес - до 254 символов.
+ * Строки в кавычках, IP-адреса в квадратных скобках и комментарии не поддерживаются.
+ */
+public final class EmailAddress {
+    public static final int MAX_LENGTH = 254;
+    public static final int MAX_LOCAL_LENGTH = 64;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final boolean[] ATEXT = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) ATEXT[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) ATEXT[c] = true;
+        for (char c = '0'; c <= '9'; c++) ATEXT[c] = true;
+        for (char c : "!#$%&'*+-/=?^_`{|}~".toCharArray()) ATEXT[c] = true;
+    }
+
+    private EmailAddress() {
+    }
+
+    public static boolean isValid(String email) {
+        if (email == null || email.isEmpty() || email.length() > MAX_LENGTH) return false;
+        int at = scanLocalPart(email);
+        return at > 0 && at <= MAX_LOCAL_LENGTH && isDomain(email, at + 1);
+    }
+
+    //позиция '@' после корректной локальной части или -1
+    private static int scanLocalPart(String email) {
+        boolean afterDot = true;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '@') return afterDot ? -1 : i;
+            if (c == '.') {
+                if (afterDot) return -1;
+                afterDot = true;
+            } else if (c < 128 && ATEXT[c]) {
+                afterDot = false;
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDomain(String email, int start) {
+        int labels = 0;
+        int labelStart = start;
+        boolean letters = true;
+        for (int i = start; i <= email.length(); i++) {
+            char c = i < email.length() ? email.charAt(i) : '.';
+            if (c == '.') {
+                int length = i - labelStart;
+                if (length == 0 || length > MAX_LABEL_LENGTH
+                        || email.charAt(labelStart) == '-' || email.charAt(i - 1) == '-') return false;
+                labels++;
+                //метка проверена: признак "только буквы" нужен лишь последней
+                if (i == email.length()) return labels >= 2 && letters && length >= 2;
+                labelStart = i + 1;
+                letters = true;
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                letters = false;
+            } else if (!isLetter(c)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.exception.ValidationException.Violation;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Проверка фильма перед сохранением: проверяются все поля, ошибки отдаются одним исключением.
+ */
+public final class FilmValidator {
+    public static final int MAX_DESCRIPTION_LENGTH = 200;
+    //первый киносеанс братьев Люмьер
+    public static final LocalDate FIRST_RELEASE = LocalDate.of(1895, 12, 28);
+
+    private FilmValidator() {
+    }
+
+    /**
+     * @throws ValidationException со всеми ошибками фильма
+     */
+    public static void validate(Film film) {
+        List<Violation> violations = null;
+        if (Violations.isBlank(film.getName()))
+            violations = Violations.add(violations, "name", "Необходимо заполнить название фильма");
+        if (film.getDescription() == null) {
+            violations = Violations.add(violations, "description", "Необходимо заполнить описание фильма");
+        } else if (film.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            violations = Violations.add(violations, "description", "Описание фильма не должно превышать "
+                    + MAX_DESCRIPTION_LENGTH + " символов");
+        }
+        if (film.getReleaseDate() == null) {
+            violations = Violations.add(violations, "releaseDate", "Необходимо указать дату выхода фильма");
+        } else if (film.getReleaseDate().isBefore(FIRST_RELEASE)) {
+            violations = Violations.add(violations, "releaseDate", "На момент этой даты не было ни одного фильма =)");
+        }
+        if (film.getDuration() == null) {
+            violations = Violations.add(violations, "duration", "Необходимо указать длительность фильма");
+        } else if (film.getDuration().isNegative()) {
+            violations = Violations.add(violations, "duration", "Дружочек, у тебя длина фильма отрицательная");
+        }
+        Violations.throwIfAny(violations);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.exception.ValidationException.Violation;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Проверка пользователя перед сохранением: проверяются все поля, ошибки отдаются одним исключением.
+ */
+public final class UserValidator {
+
+    private UserValidator() {
+    }
+
+    /**
+     * @throws ValidationException со всеми ошибками пользователя
+     */
+    public static void validate(User user) {
+        List<Violation> violations = null;
+        if (!EmailAddress.isValid(user.getEmail()))
+            violations = Violations.add(violations, "email", "Некорректный формат E-mail");
+        if (!isLogin(user.getLogin()))
+            violations = Violations.add(violations, "login", "Некорректный логин");
+        if (user.getBirthday() == null) {
+            violations = Violations.add(violations, "birthday", "Необходимо указать дату рождения");
+        } else if (user.getBirthday().isAfter(LocalDate.now())) {
+            violations = Violations.add(violations, "birthday", "Ты еще не родился. Попробуй попозже");
+        }
+        Violations.throwIfAny(violations);
+    }
+
+    //логин - непустая строка без пробельных символов
+    private static boolean isLogin(String login) {
+        if (Violations.isBlank(login)) return false;
+        for (int i = 0; i < login.length(); i++) {
+            if (Character.isWhitespace(login.charAt(i))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.exception.ValidationException.Violation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Накопитель ошибок проверки: список создаётся на первой ошибке, так что корректный объект
+ * проверяется без выделения памяти.
+ */
+final class Violations {
+
+    private Violations() {
+    }
+
+    static List<Violation> add(List<Violation> violations, String field, String message) {
+        if (violations == null) violations = new ArrayList<>(4);
+        violations.add(new Violation(field, message));
+        return violations;
+    }
+
+    static void throwIfAny(List<Violation> violations) {
+        if (violations != null) throw new ValidationException(violations);
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,51 @@
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE,
+    duration     BIGINT,
+    likes_count  INT NOT NULL DEFAULT 0
+);
+
+-- популярные фильмы читаются по этому индексу без сортировки всей таблицы
+CREATE INDEX IF NOT EXISTS films_popularity_idx ON films (likes_count DESC, id);
+
+-- отбор по диапазонам даты выхода и длительности
+CREATE INDEX IF NOT EXISTS films_release_idx ON films (release_date, id);
+CREATE INDEX IF NOT EXISTS films_duration_idx ON films (duration, id);
+
+CREATE TABLE IF NOT EXISTS film_likes (
+    film_id BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    -- время постановки; NULL у лайков, пришедших в теле фильма, - в тренды они не попадают
+    liked_at TIMESTAMP WITH TIME ZONE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+-- для баз, созданных до появления трендов
+ALTER TABLE film_likes ADD COLUMN IF NOT EXISTS liked_at TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS film_likes_user_idx ON film_likes (user_id);
+
+-- тренды читают только лайки последних окон
+CREATE INDEX IF NOT EXISTS film_likes_time_idx ON film_likes (liked_at);
+
+-- дружба хранится двумя направленными рёбрами
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend_idx ON friendships (friend_id);
+
+CREATE SEQUENCE IF NOT EXISTS film_id_seq;
+CREATE SEQUENCE IF NOT EXISTS user_id_seq;
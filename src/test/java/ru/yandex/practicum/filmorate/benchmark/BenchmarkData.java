@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Генерация тестовых сущностей для бенчмарков.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Film film(long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Film " + id);
+        film.setDescription("Description of film " + id);
+        film.setReleaseDate(LocalDate.of(1990, 1, 1).plusDays(id % 10_000));
+        film.setDuration(Duration.ofMinutes(60 + id % 120));
+        return film;
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@mail.test");
+        user.setLogin("login" + id);
+        user.setName("User " + id);
+        user.setBirthday(LocalDate.of(1990, 1, 1).plusDays(id % 10_000));
+        return user;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Запускает JMH-бенчмарки для каждого числа потоков и сохраняет результаты в JSON,
+ * чтобы сравнивать их между релизами. Аргументы: regexp бенчмарков, список потоков
+ * через запятую, число форков, каталог для результатов.
+ * Обычно вызывается из профиля Maven: {@code mvn -Pbenchmark -DskipTests verify}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        String threads = args.length > 1 ? args[1] : "1";
+        int forks = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        File directory = new File(args.length > 3 ? args[3] : "target/jmh");
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IllegalStateException("Не удалось создать каталог " + directory);
+
+        for (String count : threads.split(",")) {
+            int threadCount = Integer.parseInt(count.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threadCount)
+                    .forks(forks)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(directory, "result-" + threadCount + "-threads.json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Снятие лайков удаляемого пользователя: по обратному индексу против обхода всех фильмов.
+ * Чтобы состояние не менялось между вызовами, оба варианта возвращают лайки на место одним пакетом,
+ * так что его стоимость входит в обе оценки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteCascadeBenchmark {
+    @Param({"10000", "100000"})
+    private int films;
+
+    private static final int USERS = 10_000;
+    private static final int LIKES_PER_USER = 20;
+
+    private InMemoryFilmStorage filmStorage;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        for (long id = 1; id <= films; id++) {
+            filmStorage.addFilm(BenchmarkData.film(id));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        List<Like> likes = new ArrayList<>(USERS * LIKES_PER_USER);
+        for (long user = 1; user <= USERS; user++) {
+            for (int i = 0; i < LIKES_PER_USER; i++) {
+                likes.add(new Like(random.nextLong(1, films + 1), user));
+            }
+        }
+        filmStorage.addLikes(likes);
+    }
+
+    @Benchmark
+    public int reverseIndex() {
+        long userId = nextUser();
+        long[] filmIds = filmStorage.removeUserLikes(userId);
+        restore(filmIds, userId);
+        return filmIds.length;
+    }
+
+    @Benchmark
+    public int scan() {
+        long userId = nextUser();
+        List<Like> removed = new ArrayList<>();
+        for (Film film : filmStorage.getFilms(0, films)) {
+            if (film.getLikes().contains(userId)) removed.add(new Like(film.getId(), userId));
+        }
+        filmStorage.removeLikes(removed);
+        filmStorage.addLikes(removed);
+        return removed.size();
+    }
+
+    private void restore(long[] filmIds, long userId) {
+        List<Like> likes = new ArrayList<>(filmIds.length);
+        for (long filmId : filmIds) {
+            likes.add(new Like(filmId, userId));
+        }
+        filmStorage.addLikes(likes);
+    }
+
+    private long nextUser() {
+        return next++ % USERS + 1;
+    }
+}
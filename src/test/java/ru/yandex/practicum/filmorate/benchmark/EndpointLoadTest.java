@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест эндпоинтов FilmController/UserController против запущенного приложения.
+ * Заполняет каталог, затем concurrency клиентов в течение заданного времени шлют GET-запросы,
+ * после чего печатаются пропускная способность и перцентили задержки.
+ * Аргументы: базовый URL, число клиентов, длительность в секундах, число фильмов и пользователей.
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     ru.yandex.practicum.filmorate.benchmark.EndpointLoadTest http://localhost:8080 2000 30 1000
+ * </pre>
+ */
+public class EndpointLoadTest {
+    private static final List<String> ENDPOINTS = List.of(
+            "/films/%d", "/films/popular?count=10", "/users/%d", "/users/%d/friends",
+            "/users/%d/friends/common/%d", "/films?limit=50&after=%d");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int entities = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        seed(client, baseUrl, entities);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> run(client, baseUrl, entities, deadline, errors)));
+            }
+        }
+        long[] latencies = clients.stream().map(EndpointLoadTest::join).flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(latencies);
+        System.out.printf("clients=%d, duration=%ds, requests=%d, errors=%d, throughput=%.0f req/s%n",
+                concurrency, seconds, latencies.length, errors.get(), latencies.length / (double) seconds);
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+                percentile(latencies, 0.5), percentile(latencies, 0.9),
+                percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static long[] run(HttpClient client, String baseUrl, int entities, long deadline, AtomicLong errors) {
+        long[] latencies = new long[1024];
+        int n = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            String path = ENDPOINTS.get(random.nextInt(ENDPOINTS.size()))
+                    .formatted(random.nextInt(entities) + 1, random.nextInt(entities) + 1);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) errors.incrementAndGet();
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                continue;
+            }
+            if (n == latencies.length) latencies = Arrays.copyOf(latencies, n * 2);
+            latencies[n++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, n);
+    }
+
+    private static void seed(HttpClient client, String baseUrl, int entities) throws Exception {
+        for (int i = 1; i <= entities; i++) {
+            post(client, baseUrl + "/films", """
+                    {"name":"Film %d","description":"Description","releaseDate":"2000-01-01","duration":100}"""
+                    .formatted(i));
+            post(client, baseUrl + "/users", """
+                    {"email":"user%d@mail.test","login":"login%d","name":"User","birthday":"1990-01-01"}"""
+                    .formatted(i, i));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 1; i <= entities; i++) {
+            for (int j = 0; j < 10; j++) {
+                put(client, baseUrl + "/users/" + i + "/friends/" + (random.nextInt(entities) + 1));
+                put(client, baseUrl + "/films/" + (random.nextInt(entities) + 1) + "/like/" + i);
+            }
+        }
+    }
+
+    private static void post(HttpClient client, String url, String body) throws Exception {
+        client.send(HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static void put(HttpClient client, String url) throws Exception {
+        client.send(HttpRequest.newBuilder(URI.create(url)).PUT(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отбор фильмов по дате выхода и длительности. Даты выхода распределены по 1990-2017 годам,
+ * длительность - от 60 до 179 минут, лайки смещены к небольшой доле фильмов.
+ * Широкий отбор (год, одна минута длительности) выгоднее проходить в порядке выдачи,
+ * узкий (неделя) - диапазоном индекса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilmFilterBenchmark {
+    @Param({"100000", "1000000"})
+    private int films;
+
+    private static final int LIMIT = 20;
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1990, 1, 1);
+
+    private InMemoryFilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        for (long id = 1; id <= films; id++) {
+            filmStorage.addFilm(BenchmarkData.film(id));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        List<Like> chunk = new ArrayList<>(10_000);
+        for (int i = 0; i < 2 * films; i++) {
+            //куб равномерной величины смещает выбор к небольшой доле фильмов
+            double r = random.nextDouble();
+            chunk.add(new Like(1 + (long) (films * r * r * r), random.nextLong(1, 100_000)));
+            if (chunk.size() >= 10_000) {
+                filmStorage.addLikes(chunk);
+                chunk.clear();
+            }
+        }
+        filmStorage.addLikes(chunk);
+    }
+
+    @Benchmark
+    public List<Film> yearByPopularity() {
+        LocalDate from = LocalDate.of(ThreadLocalRandom.current().nextInt(1990, 2017), 1, 1);
+        return filmStorage.getFilms(filter(from, from.plusYears(1).minusDays(1), null, null, true), 0, LIMIT);
+    }
+
+    @Benchmark
+    public List<Film> durationByPopularity() {
+        long minutes = ThreadLocalRandom.current().nextLong(60, 180);
+        return filmStorage.getFilms(filter(null, null, minutes, minutes, true), 0, LIMIT);
+    }
+
+    @Benchmark
+    public List<Film> weekById() {
+        LocalDate from = FIRST_RELEASE.plusDays(ThreadLocalRandom.current().nextInt(10_000 - 7));
+        return filmStorage.getFilms(filter(from, from.plusDays(6), 90L, 120L, false), 0, LIMIT);
+    }
+
+    private static FilmFilter filter(LocalDate from, LocalDate to, Long minDuration, Long maxDuration,
+                                     boolean popular) {
+        FilmFilter filter = new FilmFilter();
+        filter.setReleasedFrom(from);
+        filter.setReleasedTo(to);
+        filter.setMinDuration(minDuration);
+        filter.setMaxDuration(maxDuration);
+        if (popular) filter.setSort(FilmFilter.SORT_POPULAR);
+        return filter;
+    }
+}
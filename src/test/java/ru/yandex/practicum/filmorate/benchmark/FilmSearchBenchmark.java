@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка полнотекстового поиска при росте каталога. Названия и описания собираются из словаря
+ * псевдослов с неравномерной частотой: частые слова встречаются в большой доле фильмов.
+ * prefix - одно начало слова (автодополнение), phrase - полное слово и начало следующего.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilmSearchBenchmark {
+    @Param({"100000", "1000000"})
+    private int films;
+
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 1024;
+
+    private InMemoryFilmStorage filmStorage;
+    private String[] words;
+    private String[] prefixQueries;
+    private String[] phraseQueries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(random);
+        }
+        filmStorage = new InMemoryFilmStorage();
+        for (long id = 1; id <= films; id++) {
+            Film film = BenchmarkData.film(id);
+            film.setName(text(random, 3));
+            film.setDescription(text(random, 12));
+            filmStorage.addFilm(film);
+        }
+        prefixQueries = new String[QUERIES];
+        phraseQueries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String next = pick(random);
+            prefixQueries[i] = next.substring(0, Math.min(next.length(), 3));
+            phraseQueries[i] = pick(random) + " " + next.substring(0, Math.min(next.length(), 4));
+        }
+    }
+
+    @Benchmark
+    public List<Film> prefix() {
+        return filmStorage.searchFilms(prefixQueries[ThreadLocalRandom.current().nextInt(QUERIES)], 10);
+    }
+
+    @Benchmark
+    public List<Film> phrase() {
+        return filmStorage.searchFilms(phraseQueries[ThreadLocalRandom.current().nextInt(QUERIES)], 10);
+    }
+
+    private String text(SplittableRandom random, int length) {
+        StringJoiner text = new StringJoiner(" ");
+        for (int i = 0; i < length; i++) {
+            text.add(pick(random));
+        }
+        return text.toString();
+    }
+
+    //куб равномерной величины смещает выбор к началу словаря
+    private String pick(SplittableRandom random) {
+        double r = random.nextDouble();
+        return words[(int) (VOCABULARY * r * r * r)];
+    }
+
+    private static String word(SplittableRandom random) {
+        String letters = random.nextBoolean() ? "абвгдежзиклмнопрстуфхцчшэюя" : "abcdefghijklmnopqrstuvwxyz";
+        StringBuilder word = new StringBuilder();
+        for (int i = random.nextInt(4, 10); i > 0; i--) {
+            word.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return word.toString();
+    }
+}
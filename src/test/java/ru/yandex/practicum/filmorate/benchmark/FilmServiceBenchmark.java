@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FilmServiceBenchmark {
+    @Param({"1000", "100000"})
+    private int films;
+    @Param({"10000"})
+    private int users;
+
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        filmService = new FilmService(new InMemoryFilmStorage(), userStorage);
+        for (long id = 1; id <= users; id++) {
+            userStorage.addUser(BenchmarkData.user(id));
+        }
+        for (long id = 1; id <= films; id++) {
+            filmService.addFilm(BenchmarkData.film(id));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < films * 10; i++) {
+            filmService.likeFilm((long) random.nextInt(films) + 1, (long) random.nextInt(users) + 1);
+        }
+    }
+
+    @Benchmark
+    public Collection<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10L);
+    }
+
+    @Benchmark
+    public Film likeFilm() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return filmService.likeFilm((long) random.nextInt(films) + 1, (long) random.nextInt(users) + 1);
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        //каталог растёт от итерации к итерации - это и есть сценарий массовой вставки
+        return filmService.addFilm(BenchmarkData.film(0));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Предложения друзей на графе со степенным распределением числа друзей (предпочтительное присоединение:
+ * новый пользователь дружит с edgesPerUser уже существующими, выбранными пропорционально числу их друзей).
+ * Первые пользователи становятся хабами с тысячами друзей - на них виден предел обхода.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FriendSuggestionBenchmark {
+    @Param({"100000", "1000000"})
+    private int users;
+    @Param({"5"})
+    private int edgesPerUser;
+
+    private InMemoryUserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        for (long id = 1; id <= users; id++) {
+            userStorage.addUser(BenchmarkData.user(id));
+        }
+        //концы всех рёбер: случайный элемент выбирает пользователя пропорционально его степени
+        long[] ends = new long[2 * users * edgesPerUser];
+        int size = 0;
+        SplittableRandom random = new SplittableRandom(42);
+        List<Friendship> chunk = new ArrayList<>(10_000);
+        for (long id = 2; id <= users; id++) {
+            for (int i = 0; i < edgesPerUser; i++) {
+                long friendId = size == 0 ? 1 : ends[random.nextInt(size)];
+                chunk.add(new Friendship(id, friendId));
+                ends[size++] = id;
+                ends[size++] = friendId;
+            }
+            if (chunk.size() >= 10_000) {
+                userStorage.addFriendships(chunk);
+                chunk.clear();
+            }
+        }
+        userStorage.addFriendships(chunk);
+    }
+
+    @Benchmark
+    public List<User> randomUser() {
+        return userStorage.getFriendSuggestions(ThreadLocalRandom.current().nextLong(1, users + 1), 10);
+    }
+
+    @Benchmark
+    public List<User> hub() {
+        return userStorage.getFriendSuggestions(1, 10);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.Views;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonBenchmark {
+    @Param({"0", "1000", "100000"})
+    private int relations;
+
+    private ObjectMapper mapper;
+    private ObjectWriter summary;
+    private Film film;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = new ObjectMapper().findAndRegisterModules();
+        summary = mapper.writerWithView(Views.Summary.class);
+        film = BenchmarkData.film(1);
+        user = BenchmarkData.user(1);
+        for (long id = 1; id <= relations; id++) {
+            film.getLikes().add(id);
+            user.getFriends().add(id);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeFilm() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(user);
+    }
+
+    //?view=summary: вместо множеств лайков и друзей - их размер
+    @Benchmark
+    public byte[] serializeFilmSummary() throws JsonProcessingException {
+        return summary.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public byte[] serializeUserSummary() throws JsonProcessingException {
+        return summary.writeValueAsBytes(user);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Замер памяти на один лайк: HashSet&lt;Long&gt; против LongHashSet.
+ * Параметры: число пользователей, число лайков, число фильмов.
+ * Для значений по умолчанию (1M пользователей, 10M лайков) нужен -Xmx4g:
+ * <pre>
+ * java -Xmx4g -cp target/classes:target/test-classes \
+ *     ru.yandex.practicum.filmorate.benchmark.LikeSetFootprint 1000000 10000000 100000
+ * </pre>
+ */
+public class LikeSetFootprint {
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long likes = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+        int films = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        System.out.printf("users=%d, likes=%d, films=%d%n", users, likes, films);
+        report("HashSet<Long>", measure(HashSet::new, users, likes, films), likes);
+        report("LongHashSet", measure(LongHashSet::new, users, likes, films), likes);
+    }
+
+    private static long measure(Supplier<Set<Long>> factory, int users, long likes, int films) {
+        long before = usedHeap();
+        @SuppressWarnings("unchecked")
+        Set<Long>[] likesByFilm = new Set[films];
+        for (int i = 0; i < films; i++) {
+            likesByFilm[i] = factory.get();
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        long added = 0;
+        while (added < likes) {
+            //лайки распределены неравномерно: часть фильмов заметно популярнее остальных
+            int film = (int) (Math.pow(random.nextDouble(), 2) * films);
+            if (likesByFilm[film].add((long) random.nextInt(users) + 1)) added++;
+        }
+        long after = usedHeap();
+        if (likesByFilm[0].size() < 0) throw new IllegalStateException();
+        return after - before;
+    }
+
+    private static void report(String name, long bytes, long likes) {
+        System.out.printf("%-14s %,d bytes total, %.1f bytes per like%n", name, bytes, (double) bytes / likes);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.cache.CatalogVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCache;
+import ru.yandex.practicum.filmorate.exception.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.film.LikeIngestor;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Шторм лайков на несколько фильмов: синхронный лайк против асинхронного приёма, вместе с телом ответа:
+ * синхронный отдаёт фильм со всеми лайками, асинхронный - короткое подтверждение.
+ * Асинхронный лайк при переполнении очереди ждёт писателей и повторяет, как клиент после 503,
+ * поэтому пропускная способность включает применение лайков, а не только постановку в очередь.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class LikeStormBenchmark {
+    @Param({"10"})
+    private int hotFilms;
+    @Param({"100000"})
+    private int users;
+
+    private FilmService syncService;
+    private FilmService asyncService;
+    private LikeIngestor ingestor;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = new ObjectMapper().findAndRegisterModules();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        for (long id = 1; id <= users; id++) {
+            userStorage.addUser(BenchmarkData.user(id));
+        }
+        InMemoryFilmStorage syncStorage = new InMemoryFilmStorage();
+        InMemoryFilmStorage asyncStorage = new InMemoryFilmStorage();
+        for (long id = 1; id <= hotFilms; id++) {
+            syncStorage.addFilm(BenchmarkData.film(id));
+            asyncStorage.addFilm(BenchmarkData.film(id));
+        }
+        syncService = new FilmService(syncStorage, userStorage);
+        ingestor = new LikeIngestor(asyncStorage, 4, 65_536);
+        asyncService = new FilmService(asyncStorage, userStorage, ResponseCache.NONE, new CatalogVersions(),
+                ingestor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ingestor.close();
+    }
+
+    @Benchmark
+    public byte[] syncLike() throws JsonProcessingException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return mapper.writeValueAsBytes(syncService.likeFilm(random.nextLong(1, hotFilms + 1),
+                random.nextLong(1, users + 1)));
+    }
+
+    @Benchmark
+    public byte[] asyncLike() throws JsonProcessingException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = random.nextLong(1, hotFilms + 1);
+        long userId = random.nextLong(1, users + 1);
+        while (true) {
+            try {
+                return mapper.writeValueAsBytes(asyncService.submitLike(filmId, userId, true));
+            } catch (ServiceOverloadedException e) {
+                ingestor.awaitAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.controller.ErrorHandler;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.ResponseViewAdvice;
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Попадание против промаха по несуществующему id. service - getFilmById, промах бросает исключение без стека;
+ * mvc - GET /films/{id} через диспетчер MVC, промах отдаётся готовым ответом 404;
+ * mvcLikes - GET /films/{id}/likes, промах проходит через исключение и ErrorHandler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 8, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class NotFoundBenchmark {
+    private static final int FILMS = 1000;
+
+    private FilmService filmService;
+    private MockMvc mvc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        for (long id = 1; id <= FILMS; id++) {
+            filmStorage.addFilm(BenchmarkData.film(id));
+        }
+        filmService = new FilmService(filmStorage, new InMemoryUserStorage());
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        mvc = MockMvcBuilders.standaloneSetup(new FilmController(filmService, mapper))
+                .setControllerAdvice(new ErrorHandler(), new ResponseViewAdvice())
+                .build();
+    }
+
+    @Benchmark
+    public Optional<Film> serviceHit() {
+        return filmService.getFilmById(ThreadLocalRandom.current().nextLong(1, FILMS + 1));
+    }
+
+    @Benchmark
+    public Object serviceMiss() {
+        try {
+            return filmService.getFilmById(ThreadLocalRandom.current().nextLong(FILMS + 1, 2 * FILMS + 1));
+        } catch (SoughtObjectNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mvcHit() throws Exception {
+        return mvc.perform(get("/films/{id}", ThreadLocalRandom.current().nextLong(1, FILMS + 1)))
+                .andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mvcMiss() throws Exception {
+        return mvc.perform(get("/films/{id}", ThreadLocalRandom.current().nextLong(FILMS + 1, 2 * FILMS + 1)))
+                .andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mvcLikesHit() throws Exception {
+        return mvc.perform(get("/films/{id}/likes", ThreadLocalRandom.current().nextLong(1, FILMS + 1)))
+                .andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mvcLikesMiss() throws Exception {
+        return mvc.perform(get("/films/{id}/likes", ThreadLocalRandom.current().nextLong(FILMS + 1, 2 * FILMS + 1)))
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка рекомендаций по обратному индексу лайков для случайного пользователя.
+ * Популярность фильмов неравномерная: небольшая доля фильмов собирает большую часть лайков.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RecommendationBenchmark {
+    @Param({"1000000"})
+    private int users;
+    @Param({"10"})
+    private int likesPerUser;
+
+    private static final int FILMS = 50_000;
+
+    private InMemoryFilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        for (long id = 1; id <= FILMS; id++) {
+            filmStorage.addFilm(BenchmarkData.film(id));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        List<Like> chunk = new ArrayList<>(10_000);
+        for (long user = 1; user <= users; user++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                //куб равномерной величины смещает выбор к фильмам с малыми id
+                double r = random.nextDouble();
+                chunk.add(new Like(1 + (long) (FILMS * r * r * r), user));
+            }
+            if (chunk.size() >= 10_000) {
+                filmStorage.addLikes(chunk);
+                chunk.clear();
+            }
+        }
+        filmStorage.addLikes(chunk);
+    }
+
+    @Benchmark
+    public List<Film> recommend() {
+        return filmStorage.getRecommendations(ThreadLocalRandom.current().nextLong(1, users + 1), 10);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тренды при росте каталога. Лайки поставлены за последние 30 дней и смещены к небольшой доле фильмов.
+ * likeAndUnlike - лайк со снятием: обновление оценок и рейтингов всех окон, top - десять фильмов недели.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TrendingBenchmark {
+    @Param({"100000", "1000000"})
+    private int films;
+
+    private static final Duration WEEK = Duration.ofDays(7);
+
+    private InMemoryFilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        for (long id = 1; id <= films; id++) {
+            filmStorage.addFilm(BenchmarkData.film(id));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        long now = Instant.now().getEpochSecond();
+        long month = Duration.ofDays(30).toSeconds();
+        for (int i = 0; i < 2 * films; i++) {
+            //куб равномерной величины смещает выбор к небольшой доле фильмов
+            double r = random.nextDouble();
+            filmStorage.addLike(1 + (long) (films * r * r * r), random.nextLong(1, 100_000),
+                    Instant.ofEpochSecond(now - random.nextLong(month)));
+        }
+    }
+
+    @Benchmark
+    public void likeAndUnlike() {
+        long filmId = ThreadLocalRandom.current().nextLong(1, films + 1);
+        long userId = ThreadLocalRandom.current().nextLong(100_000, 200_000);
+        filmStorage.addLike(filmId, userId);
+        filmStorage.removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public List<Film> top() {
+        return filmStorage.getTrendingFilms(WEEK, 10);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserServiceBenchmark {
+    @Param({"100", "10000"})
+    private int friends;
+    @Param({"50000"})
+    private int users;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userService = new UserService(new InMemoryUserStorage());
+        for (long id = 1; id <= users; id++) {
+            userService.addUser(BenchmarkData.user(id));
+        }
+        //у пользователей 1 и 2 по friends друзей, примерно половина из них общие
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < friends; i++) {
+            userService.addFriend(1L, (long) random.nextInt(3, users + 1));
+            userService.addFriend(2L, (long) random.nextInt(3, users + 1));
+        }
+    }
+
+    @Benchmark
+    public Collection<User> getFriendsCommon() {
+        return userService.getFriendsCommon(1L, 2L);
+    }
+
+    @Benchmark
+    public int countFriendsCommon() {
+        return userService.countFriendsCommon(1L, 2L);
+    }
+
+    @Benchmark
+    public Collection<User> getUserFriends() {
+        return userService.getUserFriends(1L);
+    }
+
+    @Benchmark
+    public User addUser() {
+        return userService.addUser(BenchmarkData.user(0));
+    }
+}
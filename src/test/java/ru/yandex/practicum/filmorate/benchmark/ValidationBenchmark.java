@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Поток запросов на добавление: проверка пользователей и фильмов валидаторами против прежней проверки
+ * в сервисах - регулярное выражение компилировалось на каждый вызов, исключение собирало стек.
+ * invalid - каждый второй объект с ошибкой. Запись исключения в журнал не входит ни в один вариант,
+ * а стек в бенчмарке мельче, чем под контроллером, так что выигрыш валидаторов здесь занижен.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    @Param({"valid", "invalid"})
+    private String input;
+
+    private User[] users;
+    private Film[] films;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        users = new User[]{BenchmarkData.user(1), BenchmarkData.user(2)};
+        films = new Film[]{BenchmarkData.film(1), BenchmarkData.film(2)};
+        if (input.equals("invalid")) {
+            users[1].setEmail("user2@mail");
+            users[1].setLogin("log in");
+            films[1].setName("");
+            films[1].setDuration(Duration.ofMinutes(-1));
+        }
+    }
+
+    @Benchmark
+    public boolean validateUser() {
+        try {
+            UserValidator.validate(users[next++ & 1]);
+            return true;
+        } catch (ValidationException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validateUserLegacy() {
+        try {
+            legacyValidateUser(users[next++ & 1]);
+            return true;
+        } catch (LegacyValidationException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validateFilm() {
+        try {
+            FilmValidator.validate(films[next++ & 1]);
+            return true;
+        } catch (ValidationException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validateFilmLegacy() {
+        try {
+            legacyValidateFilm(films[next++ & 1]);
+            return true;
+        } catch (LegacyValidationException e) {
+            return false;
+        }
+    }
+
+    //прежний UserService.validateUser без записи в журнал
+    private static void legacyValidateUser(User user) {
+        if (user.getLogin().isEmpty() || user.getLogin().contains(" "))
+            throw new LegacyValidationException("Некорректный логин");
+        if (user.getBirthday().isAfter(LocalDate.now()))
+            throw new LegacyValidationException("Ты еще не родился. Попробуй попозже");
+        Pattern pattern = Pattern.compile("^(?=.{1,64}@)[A-Za-z0-9_-]+(\\.[A-Za-z0-9_-]+)*@"
+                + "[^-][A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*(\\.[A-Za-z]{2,})$");
+        if (user.getEmail() == null || user.getEmail().isEmpty() || !pattern.matcher(user.getEmail()).matches())
+            throw new LegacyValidationException("Некорректный формат E-mail");
+    }
+
+    //прежний FilmService.validateFilm без записи в журнал
+    private static void legacyValidateFilm(Film film) {
+        if (film.getName().isEmpty()) throw new LegacyValidationException("Необходимо заполнить название фильма");
+        if (film.getDescription().length() > 200)
+            throw new LegacyValidationException("Описание фильма не должно превышать 200 символов");
+        if (film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28)))
+            throw new LegacyValidationException("На момент этой даты не было ни одного фильма =)");
+        if (film.getDuration().isNegative())
+            throw new LegacyValidationException("Дружочек, у тебя длина фильма отрицательная");
+    }
+
+    private static final class LegacyValidationException extends RuntimeException {
+        private LegacyValidationException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.WalManager;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время восстановления хранилищ при старте: только из журнала или из снимка после уплотнения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WalRestoreBenchmark {
+    @Param({"1000000", "10000000"})
+    private int likes;
+    @Param({"wal", "snapshot"})
+    private String source;
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 100_000;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-benchmark");
+        WriteAheadLog wal = new WriteAheadLog(directory, false);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(wal);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(wal);
+        WalManager manager = new WalManager(wal, filmStorage, userStorage);
+        manager.recover();
+        for (long id = 1; id <= USERS; id++) {
+            userStorage.addUser(BenchmarkData.user(id));
+        }
+        for (long id = 1; id <= FILMS; id++) {
+            filmStorage.addFilm(BenchmarkData.film(id));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < likes; i++) {
+            filmStorage.addLike((long) random.nextInt(FILMS) + 1, (long) random.nextInt(USERS) + 1);
+        }
+        if (source.equals("snapshot")) manager.compact();
+        wal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage restore() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, false);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(wal);
+        new WalManager(wal, filmStorage, new InMemoryUserStorage(wal)).recover();
+        wal.close();
+        return filmStorage;
+    }
+}
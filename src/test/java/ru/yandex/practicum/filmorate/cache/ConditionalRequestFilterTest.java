@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConditionalRequestFilterTest {
+    private CatalogVersions versions;
+    private ConditionalRequestFilter filter;
+    private FilmService filmService;
+
+    @BeforeEach
+    void setUp() {
+        versions = new CatalogVersions();
+        filter = new ConditionalRequestFilter(versions);
+        filmService = new FilmService(new InMemoryFilmStorage(), new InMemoryUserStorage(),
+                ResponseCache.NONE, versions);
+    }
+
+    @Test
+    void matchingEtagAnswersNotModifiedWithoutCallingControllerTest() throws Exception {
+        filmService.addFilm(createFilm());
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse first = get("/films/1", null, chain);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertNotNull(chain.getRequest());
+
+        chain = new MockFilterChain();
+        MockHttpServletResponse second = get("/films/1", "W/" + etag, chain);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void mutationsChangeEntityAndCatalogEtagsTest() throws Exception {
+        Film film = filmService.addFilm(createFilm());
+        filmService.addFilm(createFilm());
+        String filmEtag = get("/films/1", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG);
+        String popularEtag = get("/films/popular", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG);
+        long version = versions.film(1L);
+
+        filmService.updateFilm(film);
+        assertTrue(versions.film(1L) > version);
+        assertNotEquals(filmEtag, get("/films/1", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG));
+        assertNotEquals(popularEtag, get("/films/popular", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG));
+
+        String otherEtag = get("/films/2", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG);
+        filmService.removeFilm(1L);
+        assertEquals(otherEtag, get("/films/2", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void missingResourceIsNotTaggedTest() throws Exception {
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                response.getWriter().write("{}");
+            }
+        });
+        MockHttpServletResponse response = get("/films/9", null, chain);
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void wildcardIsExecutedAsUsualRequestTest() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = get("/films/9", "*", chain);
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void unrelatedPathsAreNotTaggedTest() throws Exception {
+        assertNull(get("/cache/stats", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG));
+        assertNotNull(get("/users/1/friends/common/2", null, new MockFilterChain()).getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse get(String uri, String ifNoneMatch, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static Film createFilm() {
+        Film film = new Film();
+        film.setName("Name");
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(1986, 1, 1));
+        film.setDuration(Duration.ofMinutes(124));
+        return film;
+    }
+}
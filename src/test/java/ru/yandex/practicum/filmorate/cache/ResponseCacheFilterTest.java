@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheFilterTest {
+    private ResponseCache cache;
+    private ResponseCacheFilter filter;
+    private final AtomicInteger calls = new AtomicInteger();
+    private int status;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        filter = new ResponseCacheFilter(cache);
+        status = HttpServletResponse.SC_OK;
+    }
+
+    @Test
+    void cachedResponseSkipsControllerTest() throws Exception {
+        assertEquals("{\"call\":1}", get("/films/7").getContentAsString());
+        assertEquals("{\"call\":1}", get("/films/007").getContentAsString());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.stats().hitCount());
+
+        cache.invalidate(ResponseCache.film(7));
+        assertEquals("{\"call\":2}", get("/films/7").getContentAsString());
+    }
+
+    @Test
+    void onlyLookupsWithOkStatusAreCachedTest() throws Exception {
+        status = HttpServletResponse.SC_NOT_FOUND;
+        get("/users/1");
+        get("/users/1");
+        status = HttpServletResponse.SC_OK;
+        get("/films/popular");
+        get("/films/popular");
+        get("/users/1/friends");
+        get("/users/1/friends");
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void responseComputedBeforeInvalidationIsDroppedTest() {
+        long stamp = cache.stamp(ResponseCache.user(1));
+        cache.invalidate(ResponseCache.user(1));
+        cache.put(ResponseCache.user(1), new byte[]{1}, stamp);
+        assertNull(cache.get(ResponseCache.user(1)));
+
+        //сброс другого ключа не отменяет запись
+        stamp = cache.stamp(ResponseCache.user(1));
+        cache.invalidate(ResponseCache.film(1));
+        cache.put(ResponseCache.user(1), new byte[]{1}, stamp);
+        assertNotNull(cache.get(ResponseCache.user(1)));
+    }
+
+    private MockHttpServletResponse get(String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setStatus(status);
+                resp.setContentType("application/json");
+                resp.getWriter().write("{\"call\":" + calls.incrementAndGet() + "}");
+            }
+        }));
+        return response;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ErrorHandlerTest {
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        FilmService filmService = new FilmService(new InMemoryFilmStorage(), userStorage);
+        mvc = MockMvcBuilders.standaloneSetup(new FilmController(filmService, mapper),
+                        new UserController(new UserService(userStorage), mapper),
+                        new RecommendationController(filmService))
+                .setControllerAdvice(new ErrorHandler(), new ResponseViewAdvice())
+                .addInterceptors(new ResponseViewAdvice.Interceptor())
+                .build();
+    }
+
+    @Test
+    void errorsAreMappedForEveryControllerTest() throws Exception {
+        mvc.perform(get("/films/42")).andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Фильм не найден"));
+        mvc.perform(get("/users/42")).andExpect(status().isNotFound());
+        mvc.perform(get("/users/42/recommendations")).andExpect(status().isNotFound());
+        mvc.perform(get("/films/popular").param("count", "0")).andExpect(status().isBadRequest());
+        mvc.perform(get("/films/abc")).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Некорректное значение параметра filmId"));
+        mvc.perform(get("/films").param("minDuration", "long")).andExpect(status().isBadRequest());
+        mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"bad\",\"login\":\"login\",\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("email"));
+    }
+
+    @Test
+    void unknownViewIsRejectedBeforeChangeTest() throws Exception {
+        mvc.perform(post("/users").param("view", "short").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"mail@mail.ru\",\"login\":\"login\",\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Представление должно быть summary или full"));
+        mvc.perform(get("/users")).andExpect(status().isOk()).andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void updateWithoutIdIsNotFoundTest() throws Exception {
+        mvc.perform(put("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Name\",\"description\":\"Description\","
+                                + "\"releaseDate\":\"1986-01-01\",\"duration\":124}"))
+                .andExpect(status().isNotFound());
+        mvc.perform(put("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"mail@mail.ru\",\"login\":\"login\",\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void notFoundHasNoStackTraceTest() {
+        assertEquals(0, new SoughtObjectNotFoundException("Фильм не найден").getStackTrace().length);
+    }
+}
@@ -1,17 +1,26 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
 import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,7 +33,8 @@ public class FilmControllerTest {
     @BeforeEach
     void setUp() {
         userStorage = new InMemoryUserStorage();
-        controller = new FilmController(new FilmService(new InMemoryFilmStorage(), userStorage));
+        controller = new FilmController(new FilmService(new InMemoryFilmStorage(), userStorage),
+                new ObjectMapper().findAndRegisterModules());
     }
 
     @Test
@@ -39,7 +49,7 @@ public class FilmControllerTest {
         Film film = createFilm(1L, "Title", "Description",
                 LocalDate.of(1986, 1, 1), Duration.ofMinutes(124));
         controller.addFilm(film);
-        assertEquals(1, controller.getFilms().size()); //заодно и Get проверяем
+        assertEquals(1, controller.getFilms(new FilmFilter()).size()); //заодно и Get проверяем
     }
 
     @Test
@@ -50,10 +60,10 @@ public class FilmControllerTest {
                 LocalDate.of(2000, 1, 1), Duration.ofMinutes(98));
         controller.addFilm(film);
         controller.updateFilm(filmUpdate);
-        Optional<Film> findFilm = Optional.of(controller.getFilms().stream()
+        Optional<Film> findFilm = Optional.of(controller.getFilms(new FilmFilter()).stream()
                 .filter(f -> f.getId().equals(1L)).findFirst().get());
         film = findFilm.get();
-        assertEquals(1, controller.getFilms().size());
+        assertEquals(1, controller.getFilms(new FilmFilter()).size());
         assertEquals(1L, film.getId());
         assertEquals("newTitle", film.getName());
         assertEquals("newDescription", film.getDescription());
@@ -65,7 +75,7 @@ public class FilmControllerTest {
     void getFilmByIdTest() {
         controller.addFilm(createFilm(1L, "Name", "Description",
                 LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
-        Film film = controller.getFilm(1L).isPresent() ? controller.getFilm(1L).get() : null;
+        Film film = getFilm(1L);
         assertNotNull(film);
         assertEquals(1L, film.getId());
         assertEquals("Name", film.getName());
@@ -79,7 +89,46 @@ public class FilmControllerTest {
                 LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
         controller.addFilm(createFilm(3L, "Name-2", "Description",
                 LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
-        assertEquals(3, controller.getFilms().size());
+        assertEquals(3, controller.getFilms(new FilmFilter()).size());
+    }
+
+    @Test
+    void getFilmsPageTest() {
+        for (long i = 1; i <= 5; i++) {
+            controller.addFilm(createFilm(i, "Name-" + i, "Description",
+                    LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        }
+        assertEquals(List.of(1L, 2L), controller.getFilmsPage(new FilmFilter(), 0L, 2).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L, 4L), controller.getFilmsPage(new FilmFilter(), 2L, 2).stream().map(Film::getId).toList());
+        assertEquals(List.of(5L), controller.getFilmsPage(new FilmFilter(), 4L, 2).stream().map(Film::getId).toList());
+        assertThrows(ValidationException.class, () -> controller.getFilmsPage(new FilmFilter(), 0L, 0));
+    }
+
+    @Test
+    void streamFilmsTest() throws Exception {
+        for (long i = 1; i <= 3; i++) {
+            controller.addFilm(createFilm(i, "Name-" + i, "Description",
+                    LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        controller.streamFilms(1L).getBody().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":2,"));
+        assertTrue(lines[1].startsWith("{\"id\":3,"));
+    }
+
+    @Test
+    void malformedNdjsonLineEndsBatchWithPartialResultTest() throws Exception {
+        String film = "{\"name\":\"Name\",\"description\":\"Description\",\"releaseDate\":\"1986-01-01\","
+                + "\"duration\":124}";
+        String body = film + "\n" + film + "\n{\"name\":\n" + film + "\n";
+        BatchResult result = controller.addFilmsStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, result.getAccepted());
+        assertEquals(Arrays.asList(1L, 2L, null), result.getIds());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getIndex());
+        assertTrue(result.getErrors().get(0).getError().startsWith("Некорректная строка NDJSON"));
     }
 
     @Test
@@ -99,8 +148,8 @@ public class FilmControllerTest {
                 LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
         controller.updateFilm(createFilm(1L, "OtherName", "OtherDescription",
                 LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
-        Film film = controller.getFilm(1L).get();
-        assertEquals(1, controller.getFilms().size());
+        Film film = getFilm(1L);
+        assertEquals(1, controller.getFilms(new FilmFilter()).size());
         assertEquals(1L, film.getId());
         assertEquals("OtherName", film.getName());
         assertEquals("OtherDescription", film.getDescription());
@@ -113,10 +162,29 @@ public class FilmControllerTest {
         userStorage.addUser(createUser(10L, "gg@gg.com", "login", "name",
                 LocalDate.of(1995, 2, 5)));
         controller.likeFilm(1L, 10L);
-        Film film = controller.getFilm(1L).get();
+        Film film = getFilm(1L);
         assertEquals(1, film.getLikes().size());
         controller.deleteLikeFilm(1L, 10L);
-        assertEquals(0, controller.getFilm(1L).get().getLikes().size());
+        assertEquals(0, getFilm(1L).getLikes().size());
+    }
+
+    @Test
+    void getLikesPageTest() {
+        controller.addFilm(createFilm(1L, "Name", "Description",
+                LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        for (long id = 1; id <= 5; id++) {
+            userStorage.addUser(createUser(id, "gg@gg.com", "login", "name", LocalDate.of(1995, 2, 5)));
+            controller.likeFilm(1L, id);
+        }
+        assertArrayEquals(new long[]{1L, 2L}, controller.getLikes(1L, 0L, 2));
+        assertArrayEquals(new long[]{3L, 4L, 5L}, controller.getLikes(1L, 2L, 10));
+        assertEquals(0, controller.getLikes(1L, 5L, 10).length);
+        assertThrows(ValidationException.class, () -> controller.getLikes(1L, 0L, 0));
+        assertThrows(SoughtObjectNotFoundException.class, () -> controller.getLikes(2L, 0L, 10));
+    }
+
+    private Film getFilm(long id) {
+        return (Film) controller.getFilm(id).getBody();
     }
 
     private Film createFilm(Long id, String name, String description, LocalDate releaseDate, Duration duration) {
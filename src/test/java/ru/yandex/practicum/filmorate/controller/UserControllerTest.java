@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
@@ -7,7 +8,10 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -18,7 +22,8 @@ public class UserControllerTest {
 
     @BeforeEach
     void setUp() {
-        controller = new UserController(new UserService(new InMemoryUserStorage()));
+        controller = new UserController(new UserService(new InMemoryUserStorage()),
+                new ObjectMapper().findAndRegisterModules());
     }
 
     @Test
@@ -73,11 +78,32 @@ public class UserControllerTest {
         assertEquals(3, controller.getUsers().size());
     }
 
+    @Test
+    void getUsersPageTest() {
+        for (long i = 1; i <= 3; i++) {
+            controller.addUser(createUser(i, "valid@email.test", "login", "name",
+                    LocalDate.of(2010, 1, 1)));
+        }
+        assertEquals(List.of(2L, 3L), controller.getUsersPage(1L, 10).stream().map(User::getId).toList());
+        assertThrows(ValidationException.class, () -> controller.getUsersPage(0L, 1001));
+    }
+
+    @Test
+    void streamUsersTest() throws Exception {
+        controller.addUser(createUser(1L, "valid@email.test", "login", "name",
+                LocalDate.of(2010, 1, 1)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        controller.streamUsers(0L).getBody().writeTo(out);
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.startsWith("{\"id\":1,"));
+        assertTrue(body.endsWith("}\n"));
+    }
+
     @Test
     void getUserByIdTest() {
         controller.addUser(createUser(1L, "valid@email.test", "login", "name",
                 LocalDate.of(2010, 1, 1)));
-        assertEquals(1L, controller.getUser(1L).get().getId());
+        assertEquals(1L, getUser(1L).getId());
     }
 
     @Test
@@ -87,10 +113,25 @@ public class UserControllerTest {
         controller.addUser(createUser(2L, "valid@email.test", "login", "name",
                 LocalDate.of(2010, 1, 1)));
         controller.addFriend(1L, 2L);
-        assertEquals(1, controller.getUser(1L).get().getFriends().size());
-        assertEquals(1, controller.getUser(2L).get().getFriends().size());
-        assertTrue(controller.getUser(1L).get().getFriends().contains(2L));
-        assertTrue(controller.getUser(2L).get().getFriends().contains(1L));
+        assertEquals(1, getUser(1L).getFriends().size());
+        assertEquals(1, getUser(2L).getFriends().size());
+        assertTrue(getUser(1L).getFriends().contains(2L));
+        assertTrue(getUser(2L).getFriends().contains(1L));
+    }
+
+    @Test
+    void getFriendsPageTest() {
+        for (long i = 1; i <= 4; i++) {
+            controller.addUser(createUser(i, "valid@email.test", "login", "name",
+                    LocalDate.of(2010, 1, 1)));
+        }
+        controller.addFriend(1L, 4L);
+        controller.addFriend(1L, 2L);
+        controller.addFriend(1L, 3L);
+        assertEquals(List.of(2L, 3L), controller.getFriendsPage(1L, 0L, 2).stream().map(User::getId).toList());
+        assertEquals(List.of(4L), controller.getFriendsPage(1L, 3L, 2).stream().map(User::getId).toList());
+        assertEquals(3, getUser(1L).getFriendsCount());
+        assertThrows(ValidationException.class, () -> controller.getFriendsPage(1L, 0L, 0));
     }
 
     @Test
@@ -100,11 +141,15 @@ public class UserControllerTest {
         controller.addUser(createUser(2L, "valid@email.test", "login", "name",
                 LocalDate.of(2010, 1, 1)));
         controller.addFriend(1L, 2L);
-        assertTrue(controller.getUser(1L).get().getFriends().contains(2L));
-        assertTrue(controller.getUser(2L).get().getFriends().contains(1L));
+        assertTrue(getUser(1L).getFriends().contains(2L));
+        assertTrue(getUser(2L).getFriends().contains(1L));
         controller.deleteFriend(1L, 2L);
-        assertFalse(controller.getUser(1L).get().getFriends().contains(2L));
-        assertFalse(controller.getUser(2L).get().getFriends().contains(1L));
+        assertFalse(getUser(1L).getFriends().contains(2L));
+        assertFalse(getUser(2L).getFriends().contains(1L));
+    }
+
+    private User getUser(long id) {
+        return (User) controller.getUser(id).getBody();
     }
 
     private User createUser(Long id, String email, String login, String name, LocalDate birthday) {
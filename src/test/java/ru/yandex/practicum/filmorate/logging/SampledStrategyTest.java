@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.servlet.LogbookFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampledStrategyTest {
+    private final List<String> written = new ArrayList<>();
+
+    @Test
+    void unsampledSuccessfulRequestIsNotWrittenTest() throws Exception {
+        send(new SampledStrategy(0, Duration.ofMinutes(1)), 200, Duration.ZERO);
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    void sampledRequestIsWrittenWithBodiesTest() throws Exception {
+        send(new SampledStrategy(1, Duration.ofMinutes(1)), 200, Duration.ZERO);
+        assertEquals(List.of("POST /films {\"name\":\"n\"} -> 200 {\"id\":1}"), written);
+    }
+
+    @Test
+    void errorIsWrittenOutsideSampleTest() throws Exception {
+        send(new SampledStrategy(0, Duration.ofMinutes(1)), 400, Duration.ZERO);
+        assertEquals(1, written.size());
+        assertEquals("POST /films  -> 400 ", written.get(0));
+    }
+
+    @Test
+    void slowRequestIsWrittenOutsideSampleTest() throws Exception {
+        send(new SampledStrategy(0, Duration.ofMillis(20)), 200, Duration.ofMillis(50));
+        assertEquals(1, written.size());
+        assertTrue(written.get(0).startsWith("POST /films"));
+    }
+
+    private void send(SampledStrategy strategy, int status, Duration delay) throws Exception {
+        Logbook logbook = Logbook.builder().strategy(strategy).sink(new RecordingSink()).build();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/films");
+        request.setContentType("application/json");
+        request.setContent("{\"name\":\"n\"}".getBytes());
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.getInputStream().readAllBytes();
+                try {
+                    Thread.sleep(delay.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                resp.setStatus(status);
+                resp.setContentType("application/json");
+                resp.getOutputStream().write("{\"id\":1}".getBytes());
+            }
+        });
+        new LogbookFilter(logbook).doFilter(request, new MockHttpServletResponse(), chain);
+    }
+
+    private class RecordingSink implements Sink {
+        @Override
+        public void write(Precorrelation precorrelation, HttpRequest request) {
+            written.add(request.getMethod() + " " + request.getPath());
+        }
+
+        //одна запись на обмен: запрос и ответ вместе
+        @Override
+        public void writeBoth(Correlation correlation, HttpRequest request, HttpResponse response)
+                throws IOException {
+            write(correlation, request, response);
+        }
+
+        @Override
+        public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+            written.add(request.getMethod() + " " + request.getPath() + " " + request.getBodyAsString()
+                    + " -> " + response.getStatus() + " " + response.getBodyAsString());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrphanReconcilerTest {
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+    private OrphanReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage();
+        FilmService filmService = new FilmService(filmStorage, userStorage);
+        reconciler = new OrphanReconciler(userStorage, filmStorage, new UserService(userStorage, filmService),
+                filmService);
+        for (long id = 1; id <= 3; id++) {
+            userStorage.addUser(createUser(id));
+            Film film = new Film();
+            film.setId(id);
+            filmStorage.addFilm(film);
+        }
+    }
+
+    @Test
+    void repairsOrphansTest() {
+        userStorage.addFriend(1L, 2L);
+        filmStorage.addLike(1L, 2L);
+        //так остаются ссылки после гонки с удалением: хранилища не проверяют пользователей
+        userStorage.getUser(1L).getFriends().add(9L);
+        userStorage.getUser(3L).getFriends().add(9L);
+        filmStorage.addLike(1L, 9L);
+        filmStorage.addLike(2L, 9L);
+        filmStorage.addLike(3L, 8L);
+
+        assertEquals(new OrphanReconciler.Result(2, 3), reconciler.reconcile());
+        assertEquals(Set.of(2L), userStorage.getUser(1L).getFriends());
+        assertTrue(userStorage.getUser(3L).getFriends().isEmpty());
+        assertEquals(Set.of(2L), filmStorage.getFilm(1L).getLikes());
+        assertArrayEquals(new long[]{2L}, filmStorage.getLikers());
+        assertEquals(1, filmStorage.countLikes());
+
+        assertEquals(new OrphanReconciler.Result(0, 0), reconciler.reconcile());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        reconciler.bindTo(registry);
+        assertEquals(3, registry.get("filmorate.reconcile.orphans").tag("kind", "like").functionCounter().count());
+    }
+
+    private User createUser(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@email.test");
+        user.setLogin("login" + id);
+        user.setName("name");
+        user.setBirthday(LocalDate.of(2010, 1, 1));
+        return user;
+    }
+}
@@ -2,7 +2,13 @@ package ru.yandex.practicum.filmorate.service.film;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
@@ -10,8 +16,15 @@ import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class FilmServiceTest {
 
@@ -53,6 +66,28 @@ public class FilmServiceTest {
         assertEquals(2, filmService.getPopularFilms(2L).size());
     }
 
+    @Test
+    void getPopularFilmsOrderTest() {
+        for (long i = 1; i <= 3; i++) {
+            filmService.addFilm(createFilm(i, "Name-" + i, "Description",
+                    LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+            userStorage.addUser(createUser(10L + i, "gg@gg.com", "login", "name",
+                    LocalDate.of(1995, 2, 5)));
+        }
+        filmService.likeFilm(3L, 11L);
+        filmService.likeFilm(3L, 12L);
+        filmService.likeFilm(2L, 11L);
+        filmService.likeFilm(2L, 11L);
+        assertEquals(List.of(3L, 2L, 1L), filmService.getPopularFilms(10L).stream().map(Film::getId).toList());
+
+        filmService.deleteLikeFilm(3L, 11L);
+        filmService.deleteLikeFilm(3L, 12L);
+        assertEquals(List.of(2L, 1L, 3L), filmService.getPopularFilms(10L).stream().map(Film::getId).toList());
+
+        filmService.removeFilm(2L);
+        assertEquals(List.of(1L), filmService.getPopularFilms(1L).stream().map(Film::getId).toList());
+    }
+
     @Test
     void updateFilmTest() {
         filmService.addFilm(createFilm(1L, "Name", "Description",
@@ -79,6 +114,166 @@ public class FilmServiceTest {
         assertEquals(0, filmService.getFilmById(1L).get().getLikes().size());
     }
 
+    @Test
+    void addFilmsBatchTest() {
+        List<Film> films = new ArrayList<>();
+        films.add(createFilm(null, "Name-1", "Description", LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        films.add(createFilm(null, "", "Description", LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        films.add(null);
+        films.add(createFilm(null, "Name", "x".repeat(201), null, Duration.ofMinutes(-1)));
+        films.add(createFilm(null, "Name-2", "Description", LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        BatchResult result = filmService.addFilms(films.iterator());
+        assertEquals(2, result.getAccepted());
+        assertEquals(Arrays.asList(1L, null, null, null, 2L), result.getIds());
+        assertEquals(List.of(1, 2, 3), result.getErrors().stream().map(BatchResult.Error::getIndex).toList());
+        //все ошибки элемента одним сообщением
+        assertEquals(3, result.getErrors().get(2).getError().split("; ").length);
+        assertEquals("Name-2", filmService.getFilmById(2L).get().getName());
+    }
+
+    @Test
+    void likeFilmsBatchTest() {
+        filmService.addFilm(createFilm(1L, "Name", "Description",
+                LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        userStorage.addUser(createUser(10L, "gg@gg.com", "login", "name",
+                LocalDate.of(1995, 2, 5)));
+        userStorage.addUser(createUser(11L, "gg@gg.com", "login", "name",
+                LocalDate.of(1995, 2, 5)));
+        BatchResult result = filmService.likeFilms(List.of(new Like(1L, 10L), new Like(2L, 10L),
+                new Like(1L, 11L), new Like(1L, 12L), new Like(1L, null)).iterator());
+        assertEquals(2, result.getAccepted());
+        assertNull(result.getIds());
+        assertEquals(List.of(1, 3, 4), result.getErrors().stream().map(BatchResult.Error::getIndex).toList());
+        assertEquals("Не заполнены обязательные поля", result.getErrors().get(2).getError());
+        assertEquals(Set.of(10L, 11L), filmService.getFilmById(1L).get().getLikes());
+    }
+
+    @Test
+    void getRecommendationsTest() {
+        for (long i = 1; i <= 5; i++) {
+            filmService.addFilm(createFilm(i, "Name-" + i, "Description",
+                    LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+            userStorage.addUser(createUser(i, "gg@gg.com", "login", "name",
+                    LocalDate.of(1995, 2, 5)));
+        }
+        //2 похож на 1 сильнее (2/3), чем 3 (1/4); у 4 нет общих фильмов с 1
+        List.of(new Like(1L, 1L), new Like(2L, 1L), new Like(1L, 2L), new Like(2L, 2L), new Like(3L, 2L),
+                new Like(1L, 3L), new Like(4L, 3L), new Like(5L, 3L), new Like(5L, 4L))
+                .forEach(like -> filmService.likeFilm(like.getFilmId(), like.getUserId()));
+        assertEquals(List.of(3L, 4L, 5L), filmService.getRecommendations(1L, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), filmService.getRecommendations(1L, 1).stream().map(Film::getId).toList());
+
+        filmService.deleteLikeFilm(3L, 2L);
+        filmService.removeFilm(4L);
+        assertEquals(List.of(5L), filmService.getRecommendations(1L, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(), filmService.getRecommendations(5L, 10));
+        assertThrows(SoughtObjectNotFoundException.class, () -> filmService.getRecommendations(6L, 10));
+        assertThrows(ValidationException.class, () -> filmService.getRecommendations(1L, 0));
+    }
+
+    @Test
+    void searchFilmsTest() {
+        List.of(createFilm(1L, "Властелин колец: Братство кольца", "Хоббит Фродо несёт кольцо в Мордор",
+                        LocalDate.of(2001, 1, 1), Duration.ofMinutes(178)),
+                createFilm(2L, "Хоббит", "Путешествие Бильбо", LocalDate.of(2012, 1, 1), Duration.ofMinutes(169)),
+                createFilm(3L, "Matrix", "Neo learns the truth about the Matrix",
+                        LocalDate.of(1999, 1, 1), Duration.ofMinutes(136)),
+                createFilm(4L, "Матрёшка", "Мультфильм о кольцах", LocalDate.of(1990, 1, 1), Duration.ofMinutes(10)),
+                createFilm(5L, "Пила", "Ужасы", LocalDate.of(2004, 1, 1), Duration.ofMinutes(103)),
+                createFilm(6L, "Пила", "Ужасы", LocalDate.of(2004, 1, 1), Duration.ofMinutes(103)))
+                .forEach(filmService::addFilm);
+        userStorage.addUser(createUser(10L, "gg@gg.com", "login", "name", LocalDate.of(1995, 2, 5)));
+        filmService.likeFilm(6L, 10L);
+
+        //совпадение в названии весит больше, чем в описании; последнее слово - префикс
+        assertEquals(List.of(2L, 1L), searchIds("хоббит"));
+        assertEquals(List.of(1L, 4L), searchIds("кол"));
+        assertEquals(List.of(1L), searchIds("братство кол"));
+        assertEquals(List.of(4L), searchIds("МАТРЕШКА"));
+        assertEquals(List.of(3L), searchIds("the matr"));
+        //при равной релевантности выше фильм с лайками
+        assertEquals(List.of(6L, 5L), searchIds("пила"));
+        assertEquals(List.of(), searchIds("терминатор"));
+
+        filmService.updateFilm(createFilm(2L, "Нечто", "Антарктида", LocalDate.of(1982, 1, 1), Duration.ofMinutes(109)));
+        filmService.removeFilm(1L);
+        assertEquals(List.of(), searchIds("хоббит"));
+        assertEquals(List.of(4L), searchIds("кол"));
+        assertEquals(List.of(2L), searchIds("нечт"));
+        assertThrows(ValidationException.class, () -> filmService.searchFilms(" ", 10));
+    }
+
+    @Test
+    void getTrendingFilmsTest() {
+        filmService.addFilm(createFilm(1L, "Name-1", "Description", LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)));
+        filmService.addFilm(createFilm(2L, "Name-2", "Description", LocalDate.of(1999, 3, 31), Duration.ofMinutes(136)));
+        userStorage.addUser(createUser(10L, "gg@gg.com", "login", "name", LocalDate.of(1995, 2, 5)));
+        filmService.likeFilm(2L, 10L);
+
+        assertEquals(List.of(2L), filmService.getTrendingFilms("7d", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(2L), filmService.getTrendingFilms("24h", 10).stream().map(Film::getId).toList());
+        assertThrows(ValidationException.class, () -> filmService.getTrendingFilms("2d", 10));
+        assertThrows(ValidationException.class, () -> filmService.getTrendingFilms("week", 10));
+        assertThrows(ValidationException.class, () -> filmService.getTrendingFilms("7d", 0));
+    }
+
+    @Test
+    void filterFilmsTest() {
+        List.of(createFilm(1L, "Name-1", "Description", LocalDate.of(1986, 1, 1), Duration.ofMinutes(124)),
+                createFilm(2L, "Name-2", "Description", LocalDate.of(1999, 3, 31), Duration.ofMinutes(136)),
+                createFilm(3L, "Name-3", "Description", LocalDate.of(1999, 12, 31), Duration.ofMinutes(20)),
+                createFilm(4L, "Name-4", "Description", LocalDate.of(2004, 6, 1), Duration.ofMinutes(103)),
+                createFilm(5L, "Name-5", "Description", LocalDate.of(2010, 7, 8), Duration.ofMinutes(190)),
+                createFilm(6L, "Name-6", "Description", LocalDate.of(2010, 1, 1), Duration.ofMinutes(95)))
+                .forEach(filmService::addFilm);
+        userStorage.addUser(createUser(10L, "gg@gg.com", "login", "name", LocalDate.of(1995, 2, 5)));
+        filmService.likeFilm(6L, 10L);
+
+        FilmFilter nineties = createFilter(LocalDate.of(1990, 1, 1), LocalDate.of(1999, 12, 31), null, null, null);
+        assertEquals(List.of(2L, 3L), filterIds(nineties));
+        FilmFilter long2000s = createFilter(LocalDate.of(2000, 1, 1), null, 90L, null, FilmFilter.SORT_POPULAR);
+        assertEquals(List.of(6L, 4L, 5L), filterIds(long2000s));
+        assertEquals(List.of(6L), filmService.getFilms(long2000s, null, 1).stream().map(Film::getId).toList());
+        FilmFilter feature = createFilter(null, null, 90L, 140L, null);
+        assertEquals(List.of(1L, 2L, 4L, 6L), filterIds(feature));
+        assertEquals(List.of(4L, 6L), filmService.getFilms(feature, 2L, 2).stream().map(Film::getId).toList());
+
+        //индексы и фасеты следуют за изменением и удалением фильма
+        filmService.updateFilm(createFilm(3L, "Name-3", "Description", LocalDate.of(2001, 1, 1),
+                Duration.ofMinutes(120)));
+        filmService.removeFilm(2L);
+        assertEquals(List.of(), filterIds(nineties));
+        assertEquals(List.of(1L, 3L, 4L, 6L), filterIds(feature));
+        FilmFacets facets = filmService.getFacets();
+        assertEquals(Map.of(1986, 1L, 2001, 1L, 2004, 1L, 2010, 2L), facets.getYears());
+        assertEquals(List.of(0L, 0L, 0L, 2L, 2L, 0L, 1L), List.copyOf(facets.getDurations().values()));
+        assertEquals("180+", List.copyOf(facets.getDurations().keySet()).get(6));
+
+        assertThrows(ValidationException.class, () -> filmService.getFilms(createFilter(LocalDate.of(2000, 1, 1),
+                LocalDate.of(1999, 1, 1), null, null, null)));
+        assertThrows(ValidationException.class, () -> filmService.getFilms(createFilter(null, null, 100L, 90L, null)));
+        assertThrows(ValidationException.class, () -> filmService.getFilms(createFilter(null, null, null, null, "name")));
+        assertThrows(ValidationException.class, () -> filmService.getFilms(long2000s, 3L, 10));
+    }
+
+    private List<Long> filterIds(FilmFilter filter) {
+        return filmService.getFilms(filter).stream().map(Film::getId).toList();
+    }
+
+    private FilmFilter createFilter(LocalDate from, LocalDate to, Long minDuration, Long maxDuration, String sort) {
+        FilmFilter filter = new FilmFilter();
+        filter.setReleasedFrom(from);
+        filter.setReleasedTo(to);
+        filter.setMinDuration(minDuration);
+        filter.setMaxDuration(maxDuration);
+        filter.setSort(sort);
+        return filter;
+    }
+
+    private List<Long> searchIds(String query) {
+        return filmService.searchFilms(query, 10).stream().map(Film::getId).toList();
+    }
+
     private Film createFilm(Long id, String name, String description, LocalDate releaseDate, Duration duration) {
         Film film = new Film();
         film.setId(id);
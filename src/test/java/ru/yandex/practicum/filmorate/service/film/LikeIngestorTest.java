@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.cache.CatalogVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCache;
+import ru.yandex.practicum.filmorate.exception.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LikeIngestorTest {
+    private static final int FILMS = 10;
+    private static final int USERS = 50;
+
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final CatalogVersions versions = new CatalogVersions();
+    private LikeIngestor ingestor;
+
+    @AfterEach
+    void tearDown() {
+        ingestor.close();
+    }
+
+    @Test
+    void likesAreVisibleToSubsequentReadsTest() {
+        InMemoryFilmStorage filmStorage = createStorage();
+        ingestor = new LikeIngestor(filmStorage, 2, 1024);
+        FilmService filmService = new FilmService(filmStorage, userStorage, ResponseCache.NONE, versions, ingestor);
+        long version = versions.film(1L);
+
+        for (long user = 1; user <= USERS; user++) {
+            filmService.submitLike(1L, user, true);
+            filmService.submitLike(2L, user, true);
+        }
+        filmService.submitLike(2L, 1L, false);
+        assertEquals(USERS, filmService.getFilmById(1L).get().getLikes().size());
+        assertEquals(USERS - 1, filmService.getFilmById(2L).get().getLikes().size());
+        assertTrue(versions.film(1L) > version);
+        //синхронное снятие лайка дожидается асинхронных изменений фильма и не обгоняет их
+        filmService.submitLike(3L, 7L, true);
+        filmService.deleteLikeFilm(3L, 7L);
+        assertTrue(filmService.getFilmById(3L).get().getLikes().isEmpty());
+
+        assertThrows(SoughtObjectNotFoundException.class, () -> filmService.submitLike(FILMS + 1L, 1L, true));
+        assertThrows(SoughtObjectNotFoundException.class, () -> filmService.submitLike(1L, USERS + 1L, true));
+    }
+
+    @Test
+    void batchIsCoalescedPerFilmAndUserTest() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Like>> added = new CopyOnWriteArrayList<>();
+        List<List<Like>> removed = new CopyOnWriteArrayList<>();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage() {
+            @Override
+            public void addLikes(List<Like> likes) {
+                await(release);
+                added.add(likes);
+                super.addLikes(likes);
+            }
+
+            @Override
+            public void removeLikes(List<Like> likes) {
+                removed.add(likes);
+                super.removeLikes(likes);
+            }
+        };
+        fill(filmStorage);
+        ingestor = new LikeIngestor(filmStorage, 1, 4);
+        //первый лайк занимает писателя, остальные копятся в очереди до переполнения
+        ingestor.submit(1L, 1L, true);
+        waitForDrain();
+        ingestor.submit(1L, 2L, true);
+        ingestor.submit(1L, 2L, false);
+        ingestor.submit(1L, 2L, true);
+        ingestor.submit(1L, 3L, false);
+        assertThrows(ServiceOverloadedException.class, () -> ingestor.submit(1L, 4L, true));
+        release.countDown();
+        ingestor.awaitAll();
+
+        assertEquals(List.of(List.of(new Like(1L, 1L)), List.of(new Like(1L, 2L))), added);
+        assertEquals(List.of(List.of(new Like(1L, 3L))), removed);
+        assertEquals(Set.of(1L, 2L), filmStorage.getFilm(1L).getLikes());
+    }
+
+    @Test
+    void likeOfUserDeletedWhileQueuedIsDroppedAloneTest() {
+        CountDownLatch release = new CountDownLatch(1);
+        //как внешний ключ film_likes в базе: пачка с лайком удалённого пользователя не применяется целиком
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage() {
+            @Override
+            public void addLikes(List<Like> likes) {
+                await(release);
+                for (Like like : likes) {
+                    if (userStorage.getUser(like.getUserId()) == null)
+                        throw new IllegalStateException("Нет пользователя " + like.getUserId());
+                }
+                super.addLikes(likes);
+            }
+        };
+        fill(filmStorage);
+        ingestor = new LikeIngestor(filmStorage, 1, 16);
+        FilmService filmService = new FilmService(filmStorage, userStorage, ResponseCache.NONE, versions, ingestor);
+        filmService.submitLike(1L, 1L, true);
+        waitForDrain();
+        filmService.submitLike(2L, 5L, true);
+        filmService.submitLike(2L, 6L, true);
+        filmService.submitLike(3L, 5L, true);
+        userStorage.removeUser(5L);
+        release.countDown();
+        ingestor.awaitAll();
+
+        assertEquals(Set.of(1L), filmStorage.getFilm(1L).getLikes());
+        assertEquals(Set.of(6L), filmStorage.getFilm(2L).getLikes());
+        assertTrue(filmStorage.getFilm(3L).getLikes().isEmpty());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ingestor.bindTo(registry);
+        assertEquals(2, registry.get("filmorate.likes.dropped").functionCounter().count());
+    }
+
+    private void waitForDrain() {
+        while (ingestor.queued() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private InMemoryFilmStorage createStorage() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        fill(filmStorage);
+        return filmStorage;
+    }
+
+    private void fill(InMemoryFilmStorage filmStorage) {
+        for (long id = 1; id <= FILMS; id++) {
+            Film film = new Film();
+            film.setId(id);
+            film.setName("Name-" + id);
+            film.setDescription("Description");
+            film.setReleaseDate(LocalDate.of(1986, 1, 1));
+            film.setDuration(Duration.ofMinutes(124));
+            filmStorage.addFilm(film);
+        }
+        for (long id = 1; id <= USERS; id++) {
+            User user = new User();
+            user.setId(id);
+            user.setEmail("user" + id + "@yandex.ru");
+            user.setLogin("user" + id);
+            user.setName("Пользователь " + id);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.addUser(user);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
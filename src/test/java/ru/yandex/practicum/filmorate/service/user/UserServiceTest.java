@@ -2,10 +2,25 @@ package ru.yandex.practicum.filmorate.service.user;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.cache.CatalogVersions;
+import ru.yandex.practicum.filmorate.cache.ResponseCache;
+import ru.yandex.practicum.filmorate.exception.SoughtObjectNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,6 +40,33 @@ public class UserServiceTest {
         assertEquals(1L, userService.getUserById(1L).get().getId());
     }
 
+    @Test
+    void updateEvictsOwnAndFriendsResponsesTest() {
+        ResponseCache cache = new ResponseCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        userService = new UserService(new InMemoryUserStorage(), null, cache, new CatalogVersions());
+        for (long id = 1; id <= 3; id++) {
+            userService.addUser(createUser(id, "valid" + id + "@email.test", "login" + id, "name",
+                    LocalDate.of(2010, 1, 1)));
+        }
+        userService.addFriend(1L, 2L);
+        List<String> keys = List.of(ResponseCache.user(1), ResponseCache.friends(1), ResponseCache.user(2),
+                ResponseCache.friends(2), ResponseCache.user(3), ResponseCache.friends(3));
+        for (String key : keys) {
+            cache.put(key, new byte[]{1}, cache.stamp(key));
+        }
+
+        User update = createUser(1L, "valid1@email.test", "login1", "other", LocalDate.of(2010, 1, 1));
+        update.setFriends(LongHashSet.of(2L));
+        userService.updateUser(update);
+        assertNull(cache.get(ResponseCache.user(1)));
+        assertNull(cache.get(ResponseCache.friends(1)));
+        //карточка первого входит в список друзей второго
+        assertNull(cache.get(ResponseCache.friends(2)));
+        assertNotNull(cache.get(ResponseCache.user(2)));
+        assertNotNull(cache.get(ResponseCache.user(3)));
+        assertNotNull(cache.get(ResponseCache.friends(3)));
+    }
+
     @Test
     void getUsersTest() {
         userService.addUser(createUser(1L, "valid@email.test", "login", "name",
@@ -75,6 +117,100 @@ public class UserServiceTest {
         assertFalse(userService.getUserById(2L).get().getFriends().contains(1L));
     }
 
+    @Test
+    void removeUserCascadesTest() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        FilmService filmService = new FilmService(filmStorage, userStorage);
+        userService = new UserService(userStorage, filmService);
+        for (long id = 1; id <= 3; id++) {
+            userService.addUser(createUser(id, "valid@email.test", "login" + id, "name",
+                    LocalDate.of(2010, 1, 1)));
+            Film film = new Film();
+            film.setId(id);
+            filmStorage.addFilm(film);
+        }
+        userService.addFriend(1L, 2L);
+        userService.addFriend(1L, 3L);
+        filmService.likeFilm(1L, 1L);
+        filmService.likeFilm(2L, 1L);
+        filmService.likeFilm(2L, 2L);
+
+        userService.removeUser(1L);
+        assertThrows(SoughtObjectNotFoundException.class, () -> userService.getUserById(1L));
+        assertTrue(userService.getUserFriends(2L).isEmpty());
+        assertTrue(userService.getUserById(3L).get().getFriends().isEmpty());
+        assertTrue(filmStorage.getFilm(1L).getLikes().isEmpty());
+        assertEquals(Set.of(2L), filmStorage.getFilm(2L).getLikes());
+        assertEquals(1, filmStorage.countLikes());
+        assertEquals(List.of(2L), filmService.getPopularFilms(1L).stream().map(Film::getId).toList());
+        assertThrows(SoughtObjectNotFoundException.class, () -> userService.removeUser(1L));
+    }
+
+    @Test
+    void getFriendsCommonTest() {
+        for (long i = 1; i <= 4; i++) {
+            userService.addUser(createUser(i, "valid@email.test", "login", "name",
+                    LocalDate.of(2010, 1, 1)));
+        }
+        userService.addFriend(1L, 3L);
+        userService.addFriend(1L, 4L);
+        userService.addFriend(2L, 3L);
+        assertEquals(List.of(3L), userService.getFriendsCommon(1L, 2L).stream().map(User::getId).toList());
+        assertEquals(1, userService.countFriendsCommon(1L, 2L));
+        assertEquals(1, userService.countFriendsCommon(3L, 4L));
+        assertEquals(0, userService.countFriendsCommon(1L, 3L));
+        assertThrows(SoughtObjectNotFoundException.class, () -> userService.countFriendsCommon(1L, 5L));
+    }
+
+    @Test
+    void addUsersAndFriendsBatchTest() {
+        BatchResult users = userService.addUsers(List.of(
+                createUser(null, "valid@email.test", "login", "", LocalDate.of(2010, 1, 1)),
+                createUser(null, "invalid", "login2", "name", LocalDate.of(2010, 1, 1)),
+                createUser(null, "valid3@email.test", "login3", "name", LocalDate.of(2010, 1, 1)),
+                createUser(null, "valid4@email.test", "login4", "name", LocalDate.of(2010, 1, 1))).iterator());
+        assertEquals(3, users.getAccepted());
+        assertEquals(Arrays.asList(1L, null, 2L, 3L), users.getIds());
+        assertEquals("login", userService.getUserById(1L).get().getName());
+
+        BatchResult friends = userService.addFriends(List.of(new Friendship(1L, 2L), new Friendship(1L, 9L),
+                new Friendship(3L, 1L)).iterator());
+        assertEquals(2, friends.getAccepted());
+        assertEquals(1, friends.getErrors().get(0).getIndex());
+        assertEquals(Set.of(2L, 3L), userService.getUserById(1L).get().getFriends());
+        assertEquals(Set.of(1L), userService.getUserById(3L).get().getFriends());
+    }
+
+    @Test
+    void getFriendSuggestionsTest() {
+        for (long id = 1; id <= 6; id++) {
+            userService.addUser(createUser(id, "valid@email.test", "login" + id, "name",
+                    LocalDate.of(2010, 1, 1)));
+        }
+        //у 1 и 4 двое общих друзей (2 и 3), у 1 и 5 - один (2)
+        userService.addFriends(List.of(new Friendship(1L, 2L), new Friendship(1L, 3L), new Friendship(2L, 4L),
+                new Friendship(3L, 4L), new Friendship(2L, 5L)).iterator());
+        assertEquals(List.of(4L, 5L), userService.getFriendSuggestions(1L, 10).stream().map(User::getId).toList());
+        assertEquals(List.of(4L), userService.getFriendSuggestions(1L, 1).stream().map(User::getId).toList());
+
+        userService.addFriend(1L, 4L);
+        assertEquals(List.of(5L), userService.getFriendSuggestions(1L, 10).stream().map(User::getId).toList());
+        assertEquals(List.of(), userService.getFriendSuggestions(6L, 10));
+        assertThrows(SoughtObjectNotFoundException.class, () -> userService.getFriendSuggestions(7L, 10));
+        assertThrows(ValidationException.class, () -> userService.getFriendSuggestions(1L, 0));
+    }
+
+    @Test
+    void validationReportsAllFieldsTest() {
+        User user = createUser(null, "user@mail", "log in", null, LocalDate.now().plusDays(1));
+        ValidationException e = assertThrows(ValidationException.class, () -> userService.addUser(user));
+        assertEquals(List.of("email", "login", "birthday"),
+                e.getViolations().stream().map(ValidationException.Violation::field).toList());
+        assertEquals(0, e.getStackTrace().length);
+        assertThrows(ValidationException.class, () -> userService.addUser(new User()));
+    }
+
     private User createUser(Long id, String email, String login, String name, LocalDate birthday) {
         User user = new User();
         user.setId(id);
@@ -0,0 +1,267 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest(properties = {"filmorate.storage=db", "spring.sql.init.mode=always"})
+@Import({FilmDbStorage.class, UserDbStorage.class})
+public class FilmDbStorageTest {
+
+    @Autowired
+    private FilmDbStorage filmStorage;
+    @Autowired
+    private UserDbStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 3; id++) {
+            userStorage.addUser(createUser(id));
+        }
+    }
+
+    @Test
+    void addAndGetFilmTest() {
+        Film film = createFilm(filmStorage.nextId(), "Name");
+        film.getLikes().add(1L);
+        film.getLikes().add(2L);
+        filmStorage.addFilm(film);
+        Film saved = filmStorage.getFilm(film.getId());
+        assertEquals("Name", saved.getName());
+        assertEquals(Duration.ofMinutes(124), saved.getDuration());
+        assertEquals(Set.of(1L, 2L), saved.getLikes());
+        assertNull(filmStorage.getFilm(-1L));
+    }
+
+    @Test
+    void popularFilmsUseLikeCounterTest() {
+        for (long id = 1; id <= 3; id++) {
+            filmStorage.addFilm(createFilm(id, "Name-" + id));
+        }
+        filmStorage.addLike(3L, 1L);
+        filmStorage.addLike(3L, 2L);
+        filmStorage.addLike(2L, 1L);
+        filmStorage.addLike(2L, 1L);
+        assertEquals(List.of(3L, 2L, 1L), filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+        filmStorage.removeLike(3L, 1L);
+        filmStorage.removeLike(3L, 2L);
+        filmStorage.removeLike(3L, 2L);
+        assertEquals(List.of(2L, 1L), filmStorage.getPopularFilms(2).stream().map(Film::getId).toList());
+        assertEquals(Set.of(1L), filmStorage.getPopularFilms(1).iterator().next().getLikes());
+        filmStorage.addLike(2L, 3L);
+        filmStorage.addLike(2L, 2L);
+        assertArrayEquals(new long[]{1L, 2L}, filmStorage.getLikes(2L, 0L, 2));
+        assertArrayEquals(new long[]{3L}, filmStorage.getLikes(2L, 2L, 2));
+    }
+
+    @Test
+    void recommendationsTest() {
+        userStorage.addUser(createUser(4L));
+        for (long id = 1; id <= 5; id++) {
+            filmStorage.addFilm(createFilm(id, "Name-" + id));
+        }
+        filmStorage.addLikes(List.of(new Like(1L, 1L), new Like(2L, 1L), new Like(1L, 2L), new Like(2L, 2L),
+                new Like(3L, 2L), new Like(1L, 3L), new Like(4L, 3L), new Like(5L, 3L), new Like(5L, 4L)));
+        assertEquals(List.of(3L, 4L, 5L), filmStorage.getRecommendations(1L, 10).stream().map(Film::getId).toList());
+        assertEquals(Set.of(2L), filmStorage.getRecommendations(1L, 1).get(0).getLikes());
+
+        filmStorage.removeLike(3L, 2L);
+        filmStorage.removeFilm(4L);
+        assertEquals(List.of(5L), filmStorage.getRecommendations(1L, 10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void searchFilmsTest() {
+        for (long id = 1; id <= 3; id++) {
+            filmStorage.addFilm(createFilm(id, "Матрёшка " + id));
+        }
+        filmStorage.addLike(2L, 1L);
+        assertEquals(List.of(2L, 1L, 3L), filmStorage.searchFilms("матреш", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), filmStorage.searchFilms("МАТРЕШКА 3", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(), filmStorage.searchFilms("матрица", 10));
+    }
+
+    @Test
+    void filterFilmsTest() {
+        for (long id = 1; id <= 4; id++) {
+            Film film = createFilm(id, "Name-" + id);
+            film.setReleaseDate(LocalDate.of(1995 + (int) id, 1, 1));
+            film.setDuration(Duration.ofMinutes(30 * id));
+            filmStorage.addFilm(film);
+        }
+        filmStorage.addLike(3L, 1L);
+        FilmFilter filter = new FilmFilter();
+        filter.setReleasedFrom(LocalDate.of(1997, 1, 1));
+        filter.setMaxDuration(100L);
+        assertEquals(List.of(2L, 3L), filmStorage.getFilms(filter, 0, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), filmStorage.getFilms(filter, 2L, 10).stream().map(Film::getId).toList());
+        filter.setMaxDuration(null);
+        filter.setSort(FilmFilter.SORT_POPULAR);
+        assertEquals(List.of(3L, 2L), filmStorage.getFilms(filter, 0, 2).stream().map(Film::getId).toList());
+
+        FilmFacets facets = filmStorage.getFacets();
+        assertEquals(Map.of(1996, 1L, 1997, 1L, 1998, 1L, 1999, 1L), facets.getYears());
+        assertEquals(1L, facets.getDurations().get("60-90"));
+        assertEquals(1L, facets.getDurations().get("120-150"));
+        assertEquals(0L, facets.getDurations().get("0-30"));
+    }
+
+    @Test
+    void trendingFilmsTest() {
+        for (long id = 1; id <= 3; id++) {
+            filmStorage.addFilm(createFilm(id, "Name-" + id));
+        }
+        Instant now = Instant.now();
+        for (long user = 1; user <= 3; user++) {
+            filmStorage.addLike(1L, user, now.minus(Duration.ofDays(20)));
+        }
+        filmStorage.addLike(2L, 1L, now.minus(Duration.ofHours(1)));
+        filmStorage.addLike(3L, 1L, null);
+
+        assertEquals(List.of(2L), filmStorage.getTrendingFilms(Duration.ofDays(1), 10).stream()
+                .map(Film::getId).toList());
+        assertEquals(List.of(1L, 2L), filmStorage.getTrendingFilms(Duration.ofDays(30), 10).stream()
+                .map(Film::getId).toList());
+        //обновление фильма сохраняет время оставшихся лайков
+        Film film = filmStorage.getFilm(2L);
+        film.getLikes().add(2L);
+        filmStorage.updateFilm(film);
+        assertEquals(List.of(2L), filmStorage.getTrendingFilms(Duration.ofDays(1), 10).stream()
+                .map(Film::getId).toList());
+    }
+
+    @Test
+    void updateAndRemoveFilmTest() {
+        Film film = filmStorage.addFilm(createFilm(1L, "Name"));
+        filmStorage.addLike(1L, 1L);
+        film.setName("OtherName");
+        film.getLikes().add(3L);
+        filmStorage.updateFilm(film);
+        assertEquals("OtherName", filmStorage.getFilm(1L).getName());
+        assertEquals(Set.of(3L), filmStorage.getFilm(1L).getLikes());
+        filmStorage.removeFilm(1L);
+        assertTrue(filmStorage.getFilms().isEmpty());
+    }
+
+    @Test
+    void removeUserKeepsLikeCountersTest() {
+        for (long id = 1; id <= 2; id++) {
+            filmStorage.addFilm(createFilm(id, "Name-" + id));
+        }
+        filmStorage.addLikes(List.of(new Like(1L, 1L), new Like(1L, 2L), new Like(2L, 2L), new Like(2L, 3L)));
+        //без правки счётчика у фильмов осталось бы по два лайка и порядок по id
+        userStorage.removeUser(1L);
+        assertEquals(List.of(2L, 1L), filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+        assertEquals(Set.of(2L), filmStorage.getFilm(1L).getLikes());
+
+        //пользователь удалён после проверки в сервисе: лайк пропускается, а не роняет пакет
+        filmStorage.addLikes(List.of(new Like(1L, 1L), new Like(1L, 3L), new Like(9L, 3L)));
+        assertEquals(Set.of(2L, 3L), filmStorage.getFilm(1L).getLikes());
+        filmStorage.removeLike(1L, 3L);
+
+        long[] changed = filmStorage.removeUserLikes(2L);
+        Arrays.sort(changed);
+        assertArrayEquals(new long[]{1L, 2L}, changed);
+        assertEquals(List.of(2L, 1L), filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+        assertArrayEquals(new long[]{3L}, filmStorage.getLikers());
+        assertEquals(0, filmStorage.removeUserLikes(2L).length);
+    }
+
+    @Test
+    void bodyLikesOfUnknownUsersAreSkippedTest() {
+        Film first = createFilm(1L, "Name-1");
+        first.getLikes().addAll(List.of(1L, 8L, 9L));
+        filmStorage.addFilm(first);
+        Film second = createFilm(2L, "Name-2");
+        second.getLikes().addAll(List.of(2L, 3L));
+        Film third = createFilm(3L, "Name-3");
+        third.getLikes().add(9L);
+        filmStorage.addFilms(List.of(second, third));
+        assertEquals(Set.of(1L), filmStorage.getFilm(1L).getLikes());
+        assertTrue(filmStorage.getFilm(3L).getLikes().isEmpty());
+        //счётчик совпадает со строками film_likes, а не с размером тела
+        assertEquals(List.of(2L, 1L, 3L), filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+
+        first.getLikes().addAll(List.of(2L, 3L));
+        filmStorage.updateFilm(first);
+        assertEquals(Set.of(1L, 2L, 3L), filmStorage.getFilm(1L).getLikes());
+        assertEquals(List.of(1L, 2L, 3L), filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void explicitIdsAdvanceSequenceTest() {
+        filmStorage.addFilms(List.of(createFilm(70L, "Name-70"), createFilm(80L, "Name-80")));
+        assertTrue(filmStorage.nextId() > 80);
+        filmStorage.addFilm(createFilm(200L, "Name-200"));
+        assertTrue(filmStorage.nextId() > 200);
+    }
+
+    @Test
+    void getFilmsPageTest() {
+        for (long id = 1; id <= 5; id++) {
+            filmStorage.addFilm(createFilm(id, "Name-" + id));
+        }
+        filmStorage.addLike(4L, 2L);
+        List<Film> page = filmStorage.getFilms(2L, 2);
+        assertEquals(List.of(3L, 4L), page.stream().map(Film::getId).toList());
+        assertEquals(Set.of(2L), page.get(1).getLikes());
+        assertEquals(5, filmStorage.getFilms().size());
+    }
+
+    @Test
+    void batchInsertTest() {
+        long[] ids = filmStorage.nextIds(3);
+        assertEquals(3, Arrays.stream(ids).distinct().count());
+        List<Film> films = Arrays.stream(ids).mapToObj(id -> createFilm(id, "Name-" + id)).toList();
+        films.get(0).getLikes().add(1L);
+        filmStorage.addFilms(films);
+        filmStorage.addLikes(List.of(new Like(ids[2], 1L), new Like(ids[2], 2L), new Like(ids[2], 2L),
+                new Like(ids[0], 1L)));
+        assertEquals(List.of(ids[2], ids[0], ids[1]),
+                filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+        assertEquals(Set.of(1L, 2L), filmStorage.getFilm(ids[2]).getLikes());
+
+        filmStorage.removeLikes(List.of(new Like(ids[2], 1L), new Like(ids[2], 2L), new Like(ids[1], 3L)));
+        assertEquals(List.of(ids[0], ids[1], ids[2]),
+                filmStorage.getPopularFilms(10).stream().map(Film::getId).toList());
+        assertTrue(filmStorage.getFilm(ids[2]).getLikes().isEmpty());
+    }
+
+    private Film createFilm(Long id, String name) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(1986, 1, 1));
+        film.setDuration(Duration.ofMinutes(124));
+        return film;
+    }
+
+    private User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@email.test");
+        user.setLogin("login" + id);
+        user.setName("name");
+        user.setBirthday(LocalDate.of(2010, 1, 1));
+        return user;
+    }
+}
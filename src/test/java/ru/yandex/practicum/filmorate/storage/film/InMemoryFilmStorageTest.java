@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryFilmStorageTest {
+    private static final int THREADS = 8;
+    private static final int FILMS = 20;
+    private static final int USERS_PER_THREAD = 500;
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFilmStorage();
+        for (long id = 1; id <= FILMS; id++) {
+            storage.addFilm(createFilm(id));
+        }
+    }
+
+    @Test
+    void concurrentLikesAreNotLostTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long firstUser = (long) t * USERS_PER_THREAD;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (long user = firstUser; user < firstUser + USERS_PER_THREAD; user++) {
+                    for (long film = 1; film <= FILMS; film++) {
+                        storage.addLike(film, user);
+                    }
+                    if (user % 2 == 0) storage.removeLike(user % FILMS + 1, user);
+                }
+                return null;
+            }));
+        }
+        Future<?> reader = executor.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                Collection<Film> popular = storage.getPopularFilms(FILMS);
+                assertTrue(popular.size() <= FILMS);
+                popular.forEach(film -> film.getLikes().forEach(Long::longValue));
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        reader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        int total = THREADS * USERS_PER_THREAD;
+        long expectedLikes = (long) total * FILMS - total / 2;
+        long actualLikes = storage.getFilms().stream().mapToLong(film -> film.getLikes().size()).sum();
+        assertEquals(expectedLikes, actualLikes);
+        assertEquals(expectedLikes, storage.countLikes());
+        assertEquals(FILMS, storage.count());
+
+        List<Film> popular = List.copyOf(storage.getPopularFilms(FILMS));
+        assertEquals(FILMS, popular.size());
+        for (int i = 1; i < popular.size(); i++) {
+            assertTrue(popular.get(i - 1).getLikes().size() >= popular.get(i).getLikes().size());
+        }
+    }
+
+    @Test
+    void trendingFilmsDecayTest() {
+        Instant now = Instant.now();
+        Duration day = Duration.ofDays(1);
+        Duration month = Duration.ofDays(30);
+        //у первого фильма много старых лайков, у второго - пара свежих
+        for (long user = 1; user <= 10; user++) {
+            storage.addLike(1L, user, now.minus(Duration.ofDays(10)));
+        }
+        storage.addLike(2L, 1L, now.minusSeconds(60));
+        storage.addLike(2L, 2L, now.minusSeconds(30));
+        //лайк без времени в тренды не попадает
+        storage.addLike(3L, 1L, null);
+
+        assertEquals(List.of(2L, 1L), storage.getTrendingFilms(day, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(1L, 2L), storage.getTrendingFilms(month, 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(1L), storage.getTrendingFilms(month, 1).stream().map(Film::getId).toList());
+
+        storage.removeLike(2L, 1L);
+        storage.removeLike(2L, 2L);
+        assertEquals(List.of(1L), storage.getTrendingFilms(day, 10).stream().map(Film::getId).toList());
+        storage.removeFilm(1L);
+        assertTrue(storage.getTrendingFilms(month, 10).isEmpty());
+
+        //лайк без времени не входит в число лайков оценки: снятие единственного лайка со временем убирает фильм
+        storage.addLike(3L, 2L, now);
+        assertEquals(1, storage.getTrendScores().get(3L).likes());
+        storage.removeLike(3L, 2L);
+        assertTrue(storage.getTrendingFilms(month, 10).isEmpty());
+    }
+
+    @Test
+    void removeUserLikesTest() {
+        storage.addLike(1L, 1L);
+        storage.addLike(2L, 1L);
+        storage.addLike(2L, 2L);
+        storage.addLike(3L, 2L);
+        storage.addLike(3L, 3L);
+        long likes = storage.countLikes();
+
+        long[] changed = storage.removeUserLikes(1L);
+        Arrays.sort(changed);
+        assertArrayEquals(new long[]{1L, 2L}, changed);
+        assertEquals(likes - 2, storage.countLikes());
+        assertEquals(Set.of(2L), storage.getFilm(2L).getLikes());
+        assertTrue(storage.getFilm(1L).getLikes().isEmpty());
+        assertEquals(List.of(3L, 2L), storage.getPopularFilms(2).stream().map(Film::getId).toList());
+        long[] likers = storage.getLikers();
+        Arrays.sort(likers);
+        assertArrayEquals(new long[]{2L, 3L}, likers);
+        assertEquals(0, storage.removeUserLikes(1L).length);
+    }
+
+    @Test
+    void nextIdIsUniqueTest() throws Exception {
+        assertEquals(FILMS + 1, storage.nextId());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Long>>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(storage.nextId());
+                }
+                return ids;
+            }));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Future<List<Long>> worker : workers) {
+            ids.addAll(worker.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(THREADS * 1000, ids.size());
+    }
+
+    private Film createFilm(Long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Name-" + id);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(1986, 1, 1));
+        film.setDuration(Duration.ofMinutes(124));
+        return film;
+    }
+}
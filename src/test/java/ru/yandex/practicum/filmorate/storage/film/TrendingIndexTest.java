@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendingIndexTest {
+    private static final Duration DAY = Duration.ofDays(1);
+    private static final Duration WEEK = Duration.ofDays(7);
+
+    @Test
+    void boundedRankingMatchesFullSortTest() {
+        TrendingIndex index = new TrendingIndex(List.of(DAY, WEEK));
+        SplittableRandom random = new SplittableRandom(7);
+        Instant now = Instant.now();
+        int films = 3 * TrendingIndex.CAPACITY;
+        for (int i = 0; i < 10 * films; i++) {
+            index.liked(random.nextInt(1, films + 1), now.minusSeconds(random.nextLong(WEEK.toSeconds())));
+        }
+        assertArrayEquals(expectedTop(index, 1, 1000), index.top(WEEK, 1000));
+
+        //снятие лайков опускает лучшие фильмы под порог, рейтинг собирается заново
+        for (long filmId : index.top(WEEK, TrendingIndex.CAPACITY)) {
+            while (index.scores().get(filmId).likes() > 1) {
+                index.unliked(filmId);
+            }
+        }
+        index.removed(expectedTop(index, 0, 1)[0]);
+        assertArrayEquals(expectedTop(index, 0, 1000), index.top(DAY, 1000));
+        assertArrayEquals(expectedTop(index, 1, 1000), index.top(WEEK, 1000));
+    }
+
+    private static long[] expectedTop(TrendingIndex index, int window, int count) {
+        Map<Long, TrendingIndex.Score> scores = index.scores();
+        return scores.keySet().stream()
+                .sorted(Comparator.comparingDouble((Long id) -> -scores.get(id).sums()[window]).thenComparing(id -> id))
+                .mapToLong(Long::longValue).limit(count).toArray();
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryUserStorageTest {
+    private static final int THREADS = 8;
+    private static final int USERS = 300;
+
+    private InMemoryUserStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryUserStorage();
+        for (long id = 1; id <= USERS; id++) {
+            storage.addUser(createUser(id));
+        }
+    }
+
+    @Test
+    void concurrentFriendshipsAreNotLostTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int shift = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                //каждый поток дружит всех со всеми, но в своём порядке обхода
+                for (long i = 0; i < USERS; i++) {
+                    long id = (i + shift * 37L) % USERS + 1;
+                    for (long friendId = 1; friendId <= USERS; friendId++) {
+                        if (friendId != id) storage.addFriend(id, friendId);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        for (User user : storage.getUsers()) {
+            assertEquals(USERS - 1, user.getFriends().size());
+        }
+        assertEquals((long) USERS * (USERS - 1), storage.countFriendLinks());
+    }
+
+    @Test
+    void concurrentRemoveFriendKeepsSymmetryTest() throws Exception {
+        for (long id = 2; id <= USERS; id++) {
+            storage.addFriend(1L, id);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int shift = t;
+            workers.add(executor.submit(() -> {
+                for (long id = 2 + shift; id <= USERS; id += THREADS) {
+                    storage.removeFriend(id, 1L);
+                    storage.addFriend(1L, id);
+                    storage.removeFriend(1L, id);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(storage.getUser(1L).getFriends().isEmpty());
+        for (long id = 2; id <= USERS; id++) {
+            assertTrue(storage.getUser(id).getFriends().isEmpty());
+        }
+        assertEquals(0, storage.countFriendLinks());
+        assertEquals(USERS, storage.count());
+    }
+
+    @Test
+    void removeUserCascadesToFriendsTest() {
+        for (long id = 2; id <= 10; id++) {
+            storage.addFriend(1L, id);
+        }
+        storage.addFriend(2L, 3L);
+        storage.removeUser(1L);
+
+        assertNull(storage.getUser(1L));
+        for (long id = 2; id <= 10; id++) {
+            assertFalse(storage.getUser(id).getFriends().contains(1L));
+        }
+        assertEquals(List.of(3L), storage.getFriends(2L, 0, 10).stream().map(User::getId).toList());
+        assertEquals(2, storage.countFriendLinks());
+        assertEquals(USERS - 1, storage.count());
+    }
+
+    @Test
+    void updateUserKeepsFriendshipSymmetricTest() {
+        storage.addFriend(1L, 2L);
+        storage.addFriend(1L, 3L);
+        User update = createUser(1L);
+        //друг 2 уходит, 4 появляется, несуществующий 999 пропускается
+        update.setFriends(LongHashSet.of(3L, 4L, 999L));
+        storage.updateUser(update);
+
+        assertEquals(Set.of(3L, 4L), storage.getUser(1L).getFriends());
+        assertFalse(storage.getUser(2L).getFriends().contains(1L));
+        assertTrue(storage.getUser(4L).getFriends().contains(1L));
+        assertEquals(4, storage.countFriendLinks());
+
+        storage.removeUser(1L);
+        assertTrue(storage.getUser(3L).getFriends().isEmpty());
+        assertTrue(storage.getUser(4L).getFriends().isEmpty());
+        assertEquals(0, storage.countFriendLinks());
+    }
+
+    private User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@email.test");
+        user.setLogin("login" + id);
+        user.setName("name");
+        user.setBirthday(LocalDate.of(2010, 1, 1));
+        return user;
+    }
+}
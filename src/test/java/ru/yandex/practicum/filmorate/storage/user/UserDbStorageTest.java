@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest(properties = {"filmorate.storage=db", "spring.sql.init.mode=always"})
+@Import(UserDbStorage.class)
+public class UserDbStorageTest {
+
+    @Autowired
+    private UserDbStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 4; id++) {
+            storage.addUser(createUser(id));
+        }
+    }
+
+    @Test
+    void addAndGetUserTest() {
+        User user = storage.getUser(1L);
+        assertEquals("login1", user.getLogin());
+        assertEquals(LocalDate.of(2010, 1, 1), user.getBirthday());
+        assertNull(storage.getUser(100L));
+        assertEquals(4, storage.getUsers().size());
+        assertTrue(storage.nextId() < storage.nextId());
+    }
+
+    @Test
+    void friendSuggestionsTest() {
+        storage.addUser(createUser(5L));
+        storage.addFriendships(List.of(new Friendship(1L, 2L), new Friendship(1L, 3L), new Friendship(2L, 4L),
+                new Friendship(3L, 4L), new Friendship(2L, 5L)));
+        assertEquals(List.of(4L, 5L), storage.getFriendSuggestions(1L, 10).stream().map(User::getId).toList());
+        assertEquals(Set.of(2L, 3L), storage.getFriendSuggestions(1L, 1).get(0).getFriends());
+        storage.addFriend(1L, 4L);
+        assertEquals(List.of(5L), storage.getFriendSuggestions(1L, 10).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void friendshipIsSymmetricTest() {
+        storage.addFriend(1L, 2L);
+        storage.addFriend(1L, 2L);
+        assertEquals(Set.of(2L), storage.getUser(1L).getFriends());
+        assertEquals(Set.of(1L), storage.getUser(2L).getFriends());
+        storage.removeFriend(2L, 1L);
+        assertTrue(storage.getUser(1L).getFriends().isEmpty());
+        assertTrue(storage.getUser(2L).getFriends().isEmpty());
+    }
+
+    @Test
+    void friendsPageTest() {
+        storage.addFriend(1L, 4L);
+        storage.addFriend(1L, 2L);
+        storage.addFriend(1L, 3L);
+        List<User> page = storage.getFriends(1L, 2L, 10);
+        assertEquals(List.of(3L, 4L), page.stream().map(User::getId).toList());
+        assertEquals(Set.of(1L), page.get(0).getFriends());
+        assertEquals(List.of(2L), storage.getFriends(1L, 0L, 1).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void commonFriendsTest() {
+        storage.addFriend(1L, 3L);
+        storage.addFriend(1L, 4L);
+        storage.addFriend(2L, 3L);
+        List<User> common = List.copyOf(storage.getCommonFriends(1L, 2L));
+        assertEquals(List.of(3L), common.stream().map(User::getId).toList());
+        assertEquals(Set.of(1L, 2L), common.get(0).getFriends());
+        assertEquals(1, storage.countCommonFriends(1L, 2L));
+        assertEquals(1, storage.countCommonFriends(3L, 4L));
+        assertEquals(0, storage.countCommonFriends(1L, 3L));
+    }
+
+    @Test
+    void removeUserDropsFriendshipsTest() {
+        storage.addFriend(1L, 2L);
+        storage.removeUser(2L);
+        assertNull(storage.getUser(2L));
+        assertTrue(storage.getUser(1L).getFriends().isEmpty());
+        assertEquals(List.of(3L, 4L), storage.getUsers(1L, 10).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void updateUserKeepsFriendshipSymmetricTest() {
+        storage.addFriend(1L, 2L);
+        User user = storage.getUser(1L);
+        user.getFriends().remove(2L);
+        user.getFriends().add(3L);
+        storage.updateUser(user);
+        assertEquals(Set.of(3L), storage.getUser(1L).getFriends());
+        assertTrue(storage.getUser(2L).getFriends().isEmpty());
+        assertEquals(Set.of(1L), storage.getUser(3L).getFriends());
+        assertEquals(2, storage.countFriendLinks());
+    }
+
+    @Test
+    void explicitIdsAdvanceSequenceTest() {
+        User user = createUser(100L);
+        user.getFriends().add(1L);
+        storage.addUsers(List.of(createUser(50L), user));
+        assertTrue(storage.nextId() > 100);
+        assertEquals(Set.of(100L), storage.getUser(1L).getFriends());
+        long next = storage.nextId();
+        //вставка id меньше выданных не откатывает последовательность
+        storage.addUser(createUser(60L));
+        assertEquals(next + 1, storage.nextId());
+    }
+
+    private User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@email.test");
+        user.setLogin("login" + id);
+        user.setName("name");
+        user.setBirthday(LocalDate.of(2010, 1, 1));
+        return user;
+    }
+}
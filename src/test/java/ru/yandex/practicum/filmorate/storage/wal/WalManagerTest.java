@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WalManagerTest {
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog wal;
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        wal.close();
+    }
+
+    @Test
+    void mutationsSurviveRestartTest() throws IOException {
+        start();
+        userStorage.addUser(createUser(1));
+        userStorage.addUser(createUser(2));
+        userStorage.addUser(createUser(3));
+        userStorage.addFriend(1L, 2L);
+        userStorage.addFriend(1L, 3L);
+        userStorage.removeFriend(1L, 3L);
+        userStorage.removeUser(3L);
+        filmStorage.addFilm(createFilm(1));
+        filmStorage.addFilm(createFilm(2));
+        filmStorage.addLike(1L, 1L);
+        filmStorage.addLike(1L, 2L);
+        filmStorage.removeLike(1L, 2L);
+        filmStorage.removeFilm(2L);
+        restart();
+
+        assertEquals(List.of(1L, 2L), userStorage.getUsers().stream().map(User::getId).toList());
+        assertEquals(List.of(2L), List.copyOf(userStorage.getUser(1L).getFriends()));
+        assertEquals(1, filmStorage.getFilms().size());
+        Film film = filmStorage.getFilm(1L);
+        assertEquals("Фильм 1", film.getName());
+        assertEquals(LocalDate.of(2000, 1, 1), film.getReleaseDate());
+        assertEquals(Duration.ofMinutes(90), film.getDuration());
+        assertEquals(List.of(1L), List.copyOf(film.getLikes()));
+        assertEquals(3, filmStorage.nextId());
+    }
+
+    @Test
+    void compactionReplacesSegmentsWithSnapshotTest() throws IOException {
+        start();
+        userStorage.addUser(createUser(1));
+        filmStorage.addFilm(createFilm(1));
+        filmStorage.addLike(1L, 1L);
+        new WalManager(wal, filmStorage, userStorage).compact();
+        filmStorage.addFilm(createFilm(2));
+        filmStorage.addLike(2L, 1L);
+        restart();
+
+        assertEquals(1, SnapshotFile.snapshots(directory).size());
+        assertEquals(2, filmStorage.getFilms().size());
+        assertEquals(1, filmStorage.getFilm(1L).getLikes().size());
+        assertEquals(1, filmStorage.getFilm(2L).getLikes().size());
+    }
+
+    @Test
+    void idsOfRemovedEntitiesAreNotReusedAfterCompactionTest() throws IOException {
+        start();
+        userStorage.addUser(createUser(userStorage.nextId()));
+        userStorage.addUser(createUser(userStorage.nextId()));
+        filmStorage.addFilm(createFilm(filmStorage.nextId()));
+        filmStorage.addFilm(createFilm(filmStorage.nextId()));
+        userStorage.removeUser(2L);
+        filmStorage.removeFilm(2L);
+        new WalManager(wal, filmStorage, userStorage).compact();
+        restart();
+
+        assertEquals(3, userStorage.nextId());
+        assertEquals(3, filmStorage.nextId());
+    }
+
+    @Test
+    void trendsSurviveRestartAndCompactionTest() throws IOException {
+        start();
+        Instant now = Instant.now();
+        filmStorage.addFilm(createFilm(1));
+        filmStorage.addFilm(createFilm(2));
+        filmStorage.addLike(1L, 1L, now.minus(Duration.ofDays(10)));
+        filmStorage.addLike(1L, 2L, now.minus(Duration.ofDays(10)));
+        filmStorage.addLike(2L, 1L, now);
+        restart();
+        assertEquals(List.of(2L, 1L), trending(Duration.ofDays(1)));
+        assertEquals(List.of(1L, 2L), trending(Duration.ofDays(30)));
+
+        new WalManager(wal, filmStorage, userStorage).compact();
+        restart();
+        assertEquals(List.of(2L, 1L), trending(Duration.ofDays(1)));
+        assertEquals(List.of(1L, 2L), trending(Duration.ofDays(30)));
+        assertEquals(2, filmStorage.getTrendScores().get(1L).likes());
+    }
+
+    @Test
+    void tornTailIsDiscardedTest() throws IOException {
+        start();
+        filmStorage.addFilm(createFilm(1));
+        filmStorage.addLike(1L, 7L);
+        wal.close();
+        //обрываем последнюю запись, как при сбое посреди записи
+        Path segment = WriteAheadLog.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        start();
+
+        assertNotNull(filmStorage.getFilm(1L));
+        assertTrue(filmStorage.getFilm(1L).getLikes().isEmpty());
+        filmStorage.addLike(1L, 8L);
+        restart();
+        assertEquals(List.of(8L), List.copyOf(filmStorage.getFilm(1L).getLikes()));
+    }
+
+    private List<Long> trending(Duration window) {
+        return filmStorage.getTrendingFilms(window, 10).stream().map(Film::getId).toList();
+    }
+
+    private void start() throws IOException {
+        wal = new WriteAheadLog(directory, false);
+        filmStorage = new InMemoryFilmStorage(wal);
+        userStorage = new InMemoryUserStorage(wal);
+        new WalManager(wal, filmStorage, userStorage).recover();
+    }
+
+    private void restart() throws IOException {
+        wal.close();
+        start();
+    }
+
+    private static User createUser(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@yandex.ru");
+        user.setLogin("user" + id);
+        user.setName("Пользователь " + id);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static Film createFilm(long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Фильм " + id);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(Duration.ofMinutes(90));
+        return film;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongCounterTest {
+
+    @Test
+    void countsLikeHashMapTest() {
+        LongCounter counter = new LongCounter();
+        LongCounter other = new LongCounter(1_000);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000) - 2_500;
+            (random.nextBoolean() ? counter : other).add(key, 1);
+            expected.merge(key, 1, Integer::sum);
+        }
+        counter.addAll(other);
+        assertEquals(expected.size(), counter.size());
+        Map<Long, Integer> actual = new HashMap<>();
+        counter.forEach(actual::put);
+        assertEquals(expected, actual);
+        assertEquals(expected.get(0L), counter.get(0L));
+        assertEquals(0, counter.get(10_000L));
+    }
+
+    @Test
+    void countNeighboursSequentialAndParallelTest() {
+        Map<Long, LongHashSet> graph = Map.of(1L, LongHashSet.of(2, 3, 4), 2L, LongHashSet.of(3, 4, 9),
+                3L, LongHashSet.of(4));
+        //у источника 7 соседей нет, девятка отброшена фильтром
+        long[] sources = {1, 2, 3, 7};
+        for (int threshold : new int[]{1, Integer.MAX_VALUE}) {
+            LongCounter counter = LongCounter.countNeighbours(sources, graph::get, 10, value -> value != 9,
+                    threshold);
+            Map<Long, Integer> actual = new HashMap<>();
+            counter.forEach(actual::put);
+            assertEquals(Map.of(2L, 1, 3L, 2, 4L, 3), actual);
+        }
+        //не больше limit соседей у каждого источника
+        int[] total = new int[1];
+        LongCounter.countNeighbours(sources, graph::get, 1, value -> true, 1)
+                .forEach((key, count) -> total[0] += count);
+        assertEquals(3, total[0]);
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Views;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongHashSetTest {
+
+    @Test
+    void behavesLikeHashSetTest() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(expected, set);
+        for (long value = -1_000; value < 1_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    void zeroIsStoredTest() {
+        LongHashSet set = LongHashSet.of(0L, 5L);
+        assertTrue(set.contains(0L));
+        assertEquals(2, set.size());
+        assertTrue(set.remove(0L));
+        assertFalse(set.contains(0L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void intersectionTest() {
+        LongHashSet small = LongHashSet.of(0L, 3L, 7L, 100L);
+        LongHashSet large = new LongHashSet();
+        for (long value = 0; value < 50; value++) {
+            large.add(value);
+        }
+        long[] common = small.intersection(large);
+        Arrays.sort(common);
+        assertArrayEquals(new long[]{0L, 3L, 7L}, common);
+        assertArrayEquals(common, Arrays.stream(large.intersection(small)).sorted().toArray());
+        assertEquals(3, large.intersectionSize(small));
+        assertEquals(0, small.intersectionSize(new LongHashSet()));
+    }
+
+    @Test
+    void iteratorWorksOnSnapshotTest() {
+        LongHashSet set = LongHashSet.of(1L, 2L, 3L);
+        Iterator<Long> iterator = set.iterator();
+        set.add(4L);
+        int seen = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            seen++;
+        }
+        assertEquals(3, seen);
+        assertEquals(Set.of(4L), set);
+    }
+
+    @Test
+    void pageIsSortedAfterCursorTest() {
+        LongHashSet set = new LongHashSet();
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            set.add(random.nextInt(20_000) - 1_000);
+        }
+        long[] sorted = Arrays.stream(set.toLongArray()).sorted().toArray();
+        long after = Long.MIN_VALUE;
+        int n = 0;
+        for (long[] page = set.toLongArray(after, 64); page.length > 0; page = set.toLongArray(after, 64)) {
+            assertArrayEquals(Arrays.copyOfRange(sorted, n, Math.min(n + 64, sorted.length)), page);
+            n += page.length;
+            after = page[page.length - 1];
+        }
+        assertEquals(sorted.length, n);
+        assertArrayEquals(new long[]{5L}, LongHashSet.of(0L, 5L).toLongArray(0L, 10));
+        assertArrayEquals(new long[]{0L}, LongHashSet.of(0L, 5L).toLongArray(-1L, 1));
+    }
+
+    @Test
+    void summaryViewReplacesLikesWithCountTest() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Film film = mapper.readValue("{\"id\":1,\"name\":\"Name\",\"duration\":124,\"likes\":[3,1,2],"
+                + "\"likesCount\":100}", Film.class);
+        assertEquals(3, film.getLikesCount());
+        String summary = mapper.writerWithView(Views.Summary.class).writeValueAsString(film);
+        assertFalse(summary.contains("\"likes\""), summary);
+        assertTrue(summary.contains("\"likesCount\":3") && summary.contains("\"name\":\"Name\""), summary);
+        assertTrue(mapper.writerWithView(Views.Full.class).writeValueAsString(film).contains("\"likes\":["));
+    }
+
+    @Test
+    void jsonShapeIsUnchangedTest() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Film film = mapper.readValue("{\"id\":1,\"name\":\"Name\",\"description\":\"Description\","
+                + "\"releaseDate\":\"1986-01-01\",\"duration\":124,\"likes\":[3,1,2]}", Film.class);
+        assertEquals(Set.of(1L, 2L, 3L), film.getLikes());
+        String json = mapper.writeValueAsString(film);
+        assertTrue(json.matches(".*\"likes\":\\[[123],[123],[123]].*"), json);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailAddressTest {
+
+    @Test
+    void acceptsDotAtomAddressesTest() {
+        for (String email : new String[]{"user@yandex.ru", "first.last@mail.example.com", "a_b-c@x1.io",
+                "user+tag@gmail.com", "o'hara@sub-domain.example.org", "x@ab.cd"}) {
+            assertTrue(EmailAddress.isValid(email), email);
+        }
+    }
+
+    @Test
+    void rejectsMalformedAddressesTest() {
+        for (String email : new String[]{null, "", "valid-email.test", "@mail.ru", "user@", "user@@mail.ru",
+                ".user@mail.ru", "user.@mail.ru", "us..er@mail.ru", "user@mail", "user@mail.r", "user@mail.r1",
+                "user@-mail.ru", "user@mail-.ru", "user@mail..ru", "user@.mail.ru", "user@mail.ru.",
+                "us er@mail.ru", "юзер@mail.ru", "user@почта.рф", "\"quoted\"@mail.ru", "user@[127.0.0.1]"}) {
+            assertFalse(EmailAddress.isValid(email), email);
+        }
+        assertTrue(EmailAddress.isValid("a".repeat(64) + "@mail.ru"));
+        assertFalse(EmailAddress.isValid("a".repeat(65) + "@mail.ru"));
+        assertFalse(EmailAddress.isValid("user@" + "a".repeat(64) + ".ru"));
+        assertFalse(EmailAddress.isValid("user@" + ("a".repeat(62) + ".").repeat(4) + "ru"));
+    }
+}